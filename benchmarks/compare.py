@@ -0,0 +1,119 @@
+#!/usr/bin/env python3
+"""Compares two JMH JSON result files, such as a stored baseline and
+a new run, and reports the change in time and allocation for every
+benchmark which appears in both.
+
+A benchmark counts as a regression if it got slower by more than the
+threshold and by more than the combined score errors, or if it
+allocates more bytes per operation than the threshold allows. The
+exit status is 1 if any regression was found, so the script can gate
+an upgrade.
+
+Usage: compare.py BASELINE CURRENT [--threshold PERCENT]
+"""
+
+import argparse
+import json
+import sys
+
+ALLOCATION = "gc.alloc.rate.norm"
+# allocation is measured per operation and is nearly exact, but a
+# few bytes of noise come from the harness itself
+ALLOCATION_SLACK_BYTES = 8.0
+
+
+def load(path):
+    with open(path) as f:
+        results = json.load(f)
+
+    by_key = {}
+    for result in results:
+        params = result.get("params") or {}
+        key = result["benchmark"]
+        if params:
+            key += "(" + ", ".join("%s=%s" % item for item in sorted(params.items())) + ")"
+        by_key[key] = result
+    return by_key
+
+
+def score(metric):
+    value = metric.get("score")
+    error = metric.get("scoreError")
+    if not isinstance(error, (int, float)):
+        error = 0.0
+    return value, error
+
+
+def allocation(result):
+    metric = (result.get("secondaryMetrics") or {}).get(ALLOCATION)
+    return metric["score"] if metric else None
+
+
+def higher_is_better(result):
+    return result.get("mode") == "thrpt"
+
+
+def short_name(key):
+    name, _, params = key.partition("(")
+    name = ".".join(name.split(".")[-2:])
+    return name + ("(" + params if params else "")
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Compare JMH results against a baseline.")
+    parser.add_argument("baseline")
+    parser.add_argument("current")
+    parser.add_argument("--threshold", type=float, default=5.0,
+                        help="allowed slowdown and allocation growth in percent (default: 5)")
+    args = parser.parse_args()
+
+    baseline = load(args.baseline)
+    current = load(args.current)
+    regressions = []
+    width = max([len(short_name(key)) for key in set(baseline) | set(current)] + [9])
+
+    print("%-*s %14s %14s %8s %12s %12s" % (width, "benchmark", "baseline", "current", "change", "B/op before", "B/op after"))
+
+    for key in sorted(current):
+        if key not in baseline:
+            print("%-*s %s" % (width, short_name(key), "new, no baseline"))
+            continue
+
+        old, new = baseline[key], current[key]
+        old_score, old_error = score(old["primaryMetric"])
+        new_score, new_error = score(new["primaryMetric"])
+        unit = new["primaryMetric"].get("scoreUnit", "")
+
+        change = (new_score - old_score) / old_score * 100.0 if old_score else 0.0
+        slowdown = -change if higher_is_better(new) else change
+        slower = slowdown > args.threshold and abs(new_score - old_score) > old_error + new_error
+
+        old_alloc, new_alloc = allocation(old), allocation(new)
+        more_alloc = (old_alloc is not None and new_alloc is not None
+                      and new_alloc - old_alloc > max(ALLOCATION_SLACK_BYTES, old_alloc * args.threshold / 100.0))
+
+        print("%-*s %14s %14s %+7.1f%% %12s %12s%s" % (
+            width, short_name(key),
+            "%.3f %s" % (old_score, unit.split("/")[0]),
+            "%.3f %s" % (new_score, unit.split("/")[0]),
+            change,
+            "-" if old_alloc is None else "%.1f" % old_alloc,
+            "-" if new_alloc is None else "%.1f" % new_alloc,
+            "  <-- REGRESSION" if slower or more_alloc else ""))
+
+        if slower or more_alloc:
+            regressions.append(key)
+
+    for key in sorted(set(baseline) - set(current)):
+        print("%-*s %s" % (width, short_name(key), "missing from current run"))
+
+    if regressions:
+        print("\n%d regression(s) above %.1f%%" % (len(regressions), args.threshold))
+        return 1
+
+    print("\nNo regressions above %.1f%%" % args.threshold)
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
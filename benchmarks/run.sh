@@ -0,0 +1,22 @@
+#!/bin/sh
+# Runs the benchmarks with the allocation profiler and writes the
+# results as JSON under results/. Any arguments are passed to JMH,
+# for example:
+#   ./run.sh PipelineBenchmark -p stages=20
+#   ./run.sh -wi 3 -i 3
+set -e
+
+cd "$(dirname "$0")"
+
+if [ ! -f target/benchmarks.jar ]; then
+    echo "target/benchmarks.jar not found; run 'mvn install' in the parent directory, then 'mvn package' here" >&2
+    exit 1
+fi
+
+mkdir -p results
+output="results/$(date +%Y%m%d-%H%M%S).json"
+
+java -jar target/benchmarks.jar -prof gc -rf json -rff "$output" "$@"
+
+echo "Results written to $output"
+echo "Compare with: ./compare.py baseline.json $output"
@@ -0,0 +1,65 @@
+package valuestreams.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import valuestreams.DateValue;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses the same date with DateValue and with a SimpleDateFormat
+ * created per call, which is what DateValue used to do. The patterns
+ * cover both the hand-parsed layouts and the formatter path, and an
+ * invalid input shows the cost of rejection.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DateParsingBenchmark {
+    @Param({
+            "yyyy-MM-dd|2018-05-21",
+            "yyyy-MM-dd'T'HH:mm:ss|2018-05-21T13:45:10",
+            "dd/MM/yyyy|21/05/2018",
+            "yyyy-MM-dd|not a date"
+    })
+    public String input;
+
+    private String pattern;
+    private String text;
+
+    @Setup
+    public void setup() {
+        int separator = input.indexOf('|');
+        pattern = input.substring(0, separator);
+        text = input.substring(separator + 1);
+    }
+
+    @Benchmark
+    public DateValue dateValue() {
+        return DateValue.of(text, pattern);
+    }
+
+    @Benchmark
+    public Date simpleDateFormat() {
+        try {
+            return new SimpleDateFormat(pattern).parse(text);
+        } catch (ParseException ex) {
+            return null;
+        }
+    }
+}
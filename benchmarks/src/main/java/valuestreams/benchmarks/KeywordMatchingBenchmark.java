@@ -0,0 +1,74 @@
+package valuestreams.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import valuestreams.KeywordMatcher;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compares checking a text against a deny-list of keywords with a
+ * contains() call per keyword, with one alternation regex, and
+ * with a KeywordMatcher. The text contains none of the keywords,
+ * which is the common and the most expensive case.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KeywordMatchingBenchmark {
+    @Param({"100", "1000"})
+    public int keywords;
+
+    private List<String> denyList;
+    private Pattern alternation;
+    private KeywordMatcher matcher;
+    private String text;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        denyList = IntStream.range(0, keywords)
+                .mapToObj(i -> Long.toString(random.nextLong() & Long.MAX_VALUE, 36))
+                .collect(Collectors.toList());
+        alternation = Pattern.compile(denyList.stream().map(Pattern::quote).collect(Collectors.joining("|")));
+        matcher = KeywordMatcher.of(denyList);
+        text = "a perfectly ordinary comment about the weather which mentions nothing on the deny-list at all";
+    }
+
+    @Benchmark
+    public boolean containsEach() {
+        for (String keyword : denyList) {
+            if (text.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean alternationRegex() {
+        return alternation.matcher(text).find();
+    }
+
+    @Benchmark
+    public boolean keywordMatcher() {
+        return matcher.containsAny(text);
+    }
+}
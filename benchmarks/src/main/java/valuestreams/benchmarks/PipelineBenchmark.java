@@ -0,0 +1,129 @@
+package valuestreams.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import valuestreams.Value;
+import valuestreams.pipeline.Pipeline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the different ways of running a pipeline for a growing
+ * number of stages. Half the stages are mappers and half are
+ * filters, and about one input in eight is rejected by the last
+ * stage. Scores are per input.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PipelineBenchmark {
+    private static final int INPUTS = 256;
+
+    @Param({"5", "20", "50"})
+    public int stages;
+
+    private Pipeline<Integer, Integer> pipeline;
+    private Pipeline<Integer, Integer> compiled;
+    private Integer[] inputs;
+    private List<Integer> inputList;
+
+    @Setup
+    public void setup() {
+        pipeline = build(stages);
+        compiled = build(stages).compile();
+
+        Random random = new Random(42);
+        inputs = new Integer[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            inputs[i] = random.nextInt(1000);
+        }
+        inputList = new ArrayList<>(Arrays.asList(inputs));
+    }
+
+    static Pipeline<Integer, Integer> build(int stages) {
+        Pipeline<Integer, Integer> pipeline = Pipeline.input(Integer.class);
+
+        for (int i = 0; i < stages - 1; i++) {
+            pipeline = i % 2 == 0
+                    ? pipeline.pipe(x -> x + 1)
+                    : pipeline.filter(x -> x >= 0);
+        }
+
+        return pipeline.filter(x -> (x & 7) != 0);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void apply(Blackhole blackhole) {
+        for (Integer input : inputs) {
+            blackhole.consume(pipeline.apply(input));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void applyCompiled(Blackhole blackhole) {
+        for (Integer input : inputs) {
+            blackhole.consume(compiled.apply(input));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void applyOrNull(Blackhole blackhole) {
+        for (Integer input : inputs) {
+            blackhole.consume(pipeline.applyOrNull(input));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void applyBatch(Blackhole blackhole) {
+        blackhole.consume(pipeline.applyBatch(inputs));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void applyStream(Blackhole blackhole) {
+        pipeline.applyStream(inputList.stream()).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void applyStreamAndFilter(Blackhole blackhole) {
+        pipeline.applyStreamAndFilter(inputList.stream()).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void applyAsync(Blackhole blackhole) {
+        for (Integer input : inputs) {
+            blackhole.consume(pipeline.applyAsync(input, Runnable::run).join());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INPUTS)
+    public void applyAllAsync(Blackhole blackhole) {
+        List<Value<Integer>> results = pipeline.applyAllAsync(inputList, 4).join();
+        blackhole.consume(results);
+    }
+}
@@ -0,0 +1,76 @@
+package valuestreams.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import valuestreams.pipeline.Pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds a synthetic set of 10,000 per-tenant pipelines, the way
+ * they would be generated from configuration: a few shared base
+ * pipelines, each extended with stages of its own by many
+ * tenants. Scores are per whole set of pipelines.
+ * See PipelineFootprint for the heap retained by the set.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineConstructionBenchmark {
+    static final int BASES = 10;
+    static final int BASE_STAGES = 20;
+    static final int TENANTS = 10_000;
+    static final int TENANT_STAGES = 30;
+
+    static List<Pipeline<Integer, Integer>> buildTenantPipelines() {
+        List<Pipeline<Integer, Integer>> bases = new ArrayList<>(BASES);
+        for (int b = 0; b < BASES; b++) {
+            bases.add(extend(Pipeline.input(Integer.class), BASE_STAGES, b));
+        }
+
+        List<Pipeline<Integer, Integer>> tenants = new ArrayList<>(TENANTS);
+        for (int t = 0; t < TENANTS; t++) {
+            tenants.add(extend(bases.get(t % BASES), TENANT_STAGES, t));
+        }
+        return tenants;
+    }
+
+    private static Pipeline<Integer, Integer> extend(Pipeline<Integer, Integer> pipeline, int stages, int seed) {
+        for (int s = 0; s < stages; s++) {
+            int threshold = seed - s;
+            pipeline = s % 2 == 0
+                    ? pipeline.pipe(x -> x + 1)
+                    : pipeline.filter(x -> x > threshold);
+        }
+        return pipeline;
+    }
+
+    @Benchmark
+    public List<Pipeline<Integer, Integer>> build() {
+        return buildTenantPipelines();
+    }
+
+    /**
+     * Includes the cost of preparing every pipeline for its first
+     * application.
+     */
+    @Benchmark
+    public void buildAndApplyOnce(Blackhole blackhole) {
+        for (Pipeline<Integer, Integer> pipeline : buildTenantPipelines()) {
+            blackhole.consume(pipeline.applyOrNull(1_000_000));
+        }
+    }
+}
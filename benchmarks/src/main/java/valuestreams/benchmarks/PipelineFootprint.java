@@ -0,0 +1,37 @@
+package valuestreams.benchmarks;
+
+import valuestreams.pipeline.Pipeline;
+
+import java.util.List;
+
+/**
+ * Prints an estimate of the heap retained by the pipelines of
+ * PipelineConstructionBenchmark, before and after each of them
+ * was applied once. Run it with a fixed heap size for stable
+ * numbers, for example:
+ * {@code java -Xms1g -Xmx1g -cp target/benchmarks.jar valuestreams.benchmarks.PipelineFootprint}
+ */
+public class PipelineFootprint {
+    public static void main(String[] args) throws InterruptedException {
+        long baseline = usedHeap();
+        List<Pipeline<Integer, Integer>> pipelines = PipelineConstructionBenchmark.buildTenantPipelines();
+        long built = usedHeap();
+
+        for (Pipeline<Integer, Integer> pipeline : pipelines) {
+            pipeline.applyOrNull(1_000_000);
+        }
+        long applied = usedHeap();
+
+        System.out.printf("%d pipelines retain %.1f MB after construction and %.1f MB after their first use%n",
+                pipelines.size(), (built - baseline) / 1e6, (applied - baseline) / 1e6);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
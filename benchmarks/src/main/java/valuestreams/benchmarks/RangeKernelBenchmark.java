@@ -0,0 +1,82 @@
+package valuestreams.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import valuestreams.IntegerValue;
+import valuestreams.rules.IntRange;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares counting the values of a column which pass a range
+ * check one boxed value at a time, with a branching loop, and
+ * with the branch-free IntRange kernels. The values are random,
+ * so a branching loop mispredicts about half of the time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+@OperationsPerInvocation(RangeKernelBenchmark.SIZE)
+public class RangeKernelBenchmark {
+    static final int SIZE = 1 << 16;
+
+    private static final IntRange RANGE = IntRange.all().greaterThanOrEquals(0).lessThan(500);
+
+    private int[] values;
+    private final int[] indexes = new int[SIZE];
+
+    @Setup
+    public void setup() {
+        values = new Random(42).ints(SIZE, -500, 500).toArray();
+    }
+
+    @Benchmark
+    public int boxedValues() {
+        int count = 0;
+        for (int value : values) {
+            if (IntegerValue.of(value).greaterThanOrEquals(0).lessThan(500).isPresent()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int branchingLoop() {
+        int count = 0;
+        for (int value : values) {
+            if (value >= 0 && value < 500) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int rangeCount() {
+        return RANGE.count(values);
+    }
+
+    @Benchmark
+    public long[] rangeMask() {
+        return RANGE.mask(values);
+    }
+
+    @Benchmark
+    public int rangeSelect() {
+        return RANGE.select(values, 0, SIZE, indexes);
+    }
+}
@@ -0,0 +1,56 @@
+package valuestreams.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import valuestreams.RegexValidator;
+import valuestreams.StringValue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the ways of matching a string against a regular
+ * expression: by source through the shared pattern cache, with a
+ * precompiled pattern, with a RegexValidator, and with
+ * String.matches, which compiles the expression on every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StringMatchesBenchmark {
+    private static final String REGEX = "[a-z0-9._%+-]+@[a-z0-9.-]+\\.[a-z]{2,}";
+    private static final Pattern PATTERN = Pattern.compile(REGEX);
+    private static final RegexValidator VALIDATOR = RegexValidator.of(PATTERN);
+
+    public String text = "someone.else@example.com";
+
+    @Benchmark
+    public StringValue matchesRegex() {
+        return StringValue.of(text).matches(REGEX);
+    }
+
+    @Benchmark
+    public StringValue matchesPattern() {
+        return StringValue.of(text).matches(PATTERN);
+    }
+
+    @Benchmark
+    public StringValue validateWithValidator() {
+        return StringValue.of(text).validate(VALIDATOR);
+    }
+
+    @Benchmark
+    public boolean stringMatches() {
+        return text.matches(REGEX);
+    }
+}
@@ -0,0 +1,200 @@
+package valuestreams.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import valuestreams.IntegerValue;
+import valuestreams.PrimitiveIntValue;
+import valuestreams.StringValue;
+import valuestreams.Value;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares value chains against Optional and hand-written checks.
+ * Every benchmark walks the same inputs, roughly half of which are
+ * rejected somewhere along the chain, so the results include the
+ * cost of the empty paths as well. Scores are per input.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(ValueBenchmark.INPUTS)
+@State(Scope.Thread)
+public class ValueBenchmark {
+    static final int INPUTS = 1024;
+
+    private String[] strings;
+    private String[] numbers;
+    private Integer[] boxed;
+    private int[] ints;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        strings = new String[INPUTS];
+        numbers = new String[INPUTS];
+        boxed = new Integer[INPUTS];
+        ints = new int[INPUTS];
+
+        for (int i = 0; i < INPUTS; i++) {
+            int n = random.nextInt(2000) - 500;
+            strings[i] = random.nextBoolean() ? "user-" + n : "  " + n + "  ";
+            numbers[i] = random.nextInt(10) == 0 ? "n/a" : Integer.toString(n);
+            boxed[i] = n;
+            ints[i] = n;
+        }
+    }
+
+    @Benchmark
+    public void genericValueChain(Blackhole blackhole) {
+        for (String s : strings) {
+            blackhole.consume(Value.of(s)
+                    .validate(str -> str.startsWith("user-"))
+                    .map(String::length)
+                    .validate(length -> length > 6)
+                    .getNullable());
+        }
+    }
+
+    @Benchmark
+    public void genericOptionalChain(Blackhole blackhole) {
+        for (String s : strings) {
+            blackhole.consume(Optional.of(s)
+                    .filter(str -> str.startsWith("user-"))
+                    .map(String::length)
+                    .filter(length -> length > 6)
+                    .orElse(null));
+        }
+    }
+
+    @Benchmark
+    public void genericHandWritten(Blackhole blackhole) {
+        for (String s : strings) {
+            Integer result = null;
+            if (s.startsWith("user-") && s.length() > 6) {
+                result = s.length();
+            }
+            blackhole.consume(result);
+        }
+    }
+
+    @Benchmark
+    public void stringValueChain(Blackhole blackhole) {
+        for (String s : strings) {
+            blackhole.consume(StringValue.of(s)
+                    .map(String::trim)
+                    .lengthBetween(2, 4)
+                    .contains("1")
+                    .getNullable());
+        }
+    }
+
+    @Benchmark
+    public void stringOptionalChain(Blackhole blackhole) {
+        for (String s : strings) {
+            blackhole.consume(Optional.of(s)
+                    .map(String::trim)
+                    .filter(str -> str.length() >= 2 && str.length() <= 4)
+                    .filter(str -> str.contains("1"))
+                    .orElse(null));
+        }
+    }
+
+    @Benchmark
+    public void stringHandWritten(Blackhole blackhole) {
+        for (String s : strings) {
+            String trimmed = s.trim();
+            int length = trimmed.length();
+            blackhole.consume(length >= 2 && length <= 4 && trimmed.contains("1") ? trimmed : null);
+        }
+    }
+
+    @Benchmark
+    public void numericalValueChain(Blackhole blackhole) {
+        for (Integer n : boxed) {
+            blackhole.consume(IntegerValue.of(n)
+                    .betweenInclusive(0, 1000)
+                    .map(x -> x * 2)
+                    .greaterThan(100)
+                    .getNullable());
+        }
+    }
+
+    @Benchmark
+    public void primitiveValueChain(Blackhole blackhole) {
+        for (int n : ints) {
+            blackhole.consume(PrimitiveIntValue.of(n)
+                    .betweenInclusive(0, 1000)
+                    .map(x -> x * 2)
+                    .greaterThan(100)
+                    .getOrElse(-1));
+        }
+    }
+
+    @Benchmark
+    public void numericalOptionalChain(Blackhole blackhole) {
+        for (Integer n : boxed) {
+            blackhole.consume(Optional.of(n)
+                    .filter(x -> x >= 0 && x <= 1000)
+                    .map(x -> x * 2)
+                    .filter(x -> x > 100)
+                    .orElse(null));
+        }
+    }
+
+    @Benchmark
+    public void numericalHandWritten(Blackhole blackhole) {
+        for (int n : ints) {
+            blackhole.consume(n >= 0 && n <= 1000 && n * 2 > 100 ? n * 2 : -1);
+        }
+    }
+
+    @Benchmark
+    public void parseValueChain(Blackhole blackhole) {
+        for (String s : numbers) {
+            blackhole.consume(StringValue.of(s)
+                    .asInteger()
+                    .greaterThanOrEquals(0)
+                    .getNullable());
+        }
+    }
+
+    @Benchmark
+    public void parsePrimitiveChain(Blackhole blackhole) {
+        for (String s : numbers) {
+            blackhole.consume(PrimitiveIntValue.fromString(s)
+                    .greaterThanOrEquals(0)
+                    .getOrElse(-1));
+        }
+    }
+
+    @Benchmark
+    public void parseHandWritten(Blackhole blackhole) {
+        for (String s : numbers) {
+            int result = -1;
+            try {
+                int n = Integer.parseInt(s);
+                if (n >= 0) {
+                    result = n;
+                }
+            } catch (NumberFormatException ex) {
+                // rejected
+            }
+            blackhole.consume(result);
+        }
+    }
+}
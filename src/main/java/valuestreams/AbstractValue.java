@@ -54,18 +54,26 @@ abstract class AbstractValue<T> {
      */
     public <E extends Exception> T getValueOrThrow(Class<E> exceptionClass, String message) throws E {
         if (isEmpty()) {
-            try {
-                Constructor<E> constructor = exceptionClass.getConstructor(String.class);
-                throw constructor.newInstance(message);
-            } catch (IllegalAccessException | InstantiationException |
-                    NoSuchMethodException | InvocationTargetException ex) {
-                ex.printStackTrace();
-                System.exit(1);
-            }
+            raise(exceptionClass, message);
         }
         return value;
     }
 
+    /**
+     * Instantiates and throws the given exception type. Shared
+     * with the primitive values which don't extend this class.
+     */
+    static <E extends Exception> void raise(Class<E> exceptionClass, String message) throws E {
+        try {
+            Constructor<E> constructor = exceptionClass.getConstructor(String.class);
+            throw constructor.newInstance(message);
+        } catch (IllegalAccessException | InstantiationException |
+                NoSuchMethodException | InvocationTargetException ex) {
+            ex.printStackTrace();
+            System.exit(1);
+        }
+    }
+
     /**
      * Gets the underlying value of this container.
      * @return The encapsulated value, if present. Null
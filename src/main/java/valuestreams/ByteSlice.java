@@ -0,0 +1,265 @@
+package valuestreams;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A read-only view of a range of UTF-8 (or ASCII) bytes in an
+ * array or a buffer, which can be checked as text without being
+ * decoded. Comparisons against other text are made on the bytes
+ * directly, and the length in chars is counted from the bytes;
+ * only charAt() on non-ASCII text and toString() decode the
+ * bytes, once. The bytes must not change while the slice is in
+ * use, and buffers are never moved from their position.
+ * {@code TextValue.of(ByteSlice.of(packet, 12, 40)).startsWith("GET ").lengthAtMost(32)}
+ */
+public final class ByteSlice implements CharSequence {
+    private static final int UNKNOWN = -1;
+
+    private final byte[] array;
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final int length;
+
+    // the char length if the text is ASCII, or -2 minus the char length otherwise;
+    // a single field so that a racing thread sees either nothing or the whole result
+    private int scanned = UNKNOWN;
+    private String string;
+
+    private ByteSlice(byte[] array, ByteBuffer buffer, int offset, int length) {
+        this.array = array;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public static ByteSlice of(byte[] bytes) {
+        return new ByteSlice(bytes, null, 0, bytes.length);
+    }
+
+    /**
+     * @param bytes The array holding the text
+     * @param offset The index of the first byte of the text
+     * @param length The number of bytes in the text
+     * @return A new slice
+     */
+    public static ByteSlice of(byte[] bytes, int offset, int length) {
+        checkRange(bytes.length, offset, length);
+        return new ByteSlice(bytes, null, offset, length);
+    }
+
+    /**
+     * @param buffer The buffer holding the text, whose position
+     *               isn't used or changed
+     * @param offset The index of the first byte of the text
+     * @param length The number of bytes in the text
+     * @return A new slice
+     */
+    public static ByteSlice of(ByteBuffer buffer, int offset, int length) {
+        checkRange(buffer.limit(), offset, length);
+        if (buffer.hasArray()) {
+            return new ByteSlice(buffer.array(), null, buffer.arrayOffset() + offset, length);
+        }
+        return new ByteSlice(null, buffer, offset, length);
+    }
+
+    /**
+     * @param buffer The buffer holding the text between its
+     *               position and its limit
+     * @return A new slice
+     */
+    public static ByteSlice of(ByteBuffer buffer) {
+        return of(buffer, buffer.position(), buffer.remaining());
+    }
+
+    private static void checkRange(int size, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > size - length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length
+                    + ") is out of bounds for size " + size);
+        }
+    }
+
+    /**
+     * @return The number of bytes in the slice
+     */
+    public int byteLength() {
+        return length;
+    }
+
+    public byte byteAt(int index) {
+        checkIndex(index);
+        return get(index);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", length: " + length);
+        }
+    }
+
+    private byte get(int index) {
+        return array != null ? array[offset + index] : buffer.get(offset + index);
+    }
+
+    public boolean isAscii() {
+        return scan() >= 0;
+    }
+
+    /**
+     * @return The number of chars the text has when decoded, which
+     * is counted without decoding it
+     */
+    @Override
+    public int length() {
+        int result = scan();
+        return result >= 0 ? result : -2 - result;
+    }
+
+    private int scan() {
+        int result = scanned;
+        if (result == UNKNOWN) {
+            int count = 0;
+            int bits = 0;
+            for (int i = 0; i < length; i++) {
+                int b = get(i);
+                bits |= b;
+                // every byte but a continuation byte starts a char, and four-byte chars are surrogate pairs
+                count += ((b & 0xC0) != 0x80 ? 1 : 0) + ((b & 0xF8) == 0xF0 ? 1 : 0);
+            }
+            result = bits >= 0 ? length : -2 - count;
+            scanned = result;
+        }
+        return result;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (isAscii()) {
+            checkIndex(index);
+            return (char) get(index);
+        }
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    /**
+     * @param other The text to compare against
+     * @return True if the slice holds the same chars as the text
+     */
+    public boolean contentEquals(CharSequence other) {
+        byte[] needle = utf8OrNull(other);
+        return byteLengthOf(other, needle) == length && regionMatches(0, other, needle);
+    }
+
+    /**
+     * @param prefix The text to look for
+     * @return True if the slice starts with the text
+     */
+    public boolean startsWith(CharSequence prefix) {
+        byte[] needle = utf8OrNull(prefix);
+        return byteLengthOf(prefix, needle) <= length && regionMatches(0, prefix, needle);
+    }
+
+    /**
+     * @param sequence The text to look for
+     * @return True if the slice contains the text
+     */
+    public boolean contains(CharSequence sequence) {
+        return indexOfBytes(sequence) >= 0;
+    }
+
+    /**
+     * Finds text by comparing bytes. Since no byte of a multi-byte
+     * UTF-8 char is an ASCII char or the first byte of another
+     * char, a match of the bytes is always a match of the chars.
+     * @return The byte index of the first occurrence, or -1
+     */
+    private int indexOfBytes(CharSequence sequence) {
+        byte[] needle = utf8OrNull(sequence);
+        int needleLength = byteLengthOf(sequence, needle);
+
+        if (needleLength == 0) {
+            return 0;
+        }
+
+        byte first = byteOf(sequence, needle, 0);
+        for (int i = 0, last = length - needleLength; i <= last; i++) {
+            if (get(i) == first && regionMatches(i, sequence, needle)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Compares the bytes at a position with the bytes of a text,
+     * which are given either as an array or by the text itself
+     * when it's a slice or ASCII chars. The caller makes sure the
+     * text fits.
+     */
+    private boolean regionMatches(int position, CharSequence text, byte[] bytes) {
+        int textLength = byteLengthOf(text, bytes);
+        for (int i = 0; i < textLength; i++) {
+            if (get(position + i) != byteOf(text, bytes, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int byteLengthOf(CharSequence text, byte[] bytes) {
+        if (bytes != null) {
+            return bytes.length;
+        }
+        return text instanceof ByteSlice ? ((ByteSlice) text).length : text.length();
+    }
+
+    private static byte byteOf(CharSequence text, byte[] bytes, int index) {
+        if (bytes != null) {
+            return bytes[index];
+        }
+        return text instanceof ByteSlice ? ((ByteSlice) text).get(index) : (byte) text.charAt(index);
+    }
+
+    /**
+     * @return Null if the text can be compared as bytes directly,
+     * that is when it's a slice or made of ASCII chars, otherwise
+     * its UTF-8 encoding
+     */
+    private static byte[] utf8OrNull(CharSequence text) {
+        if (text instanceof ByteSlice || isAsciiText(text)) {
+            return null;
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static boolean isAsciiText(CharSequence text) {
+        for (int i = 0, n = text.length(); i < n; i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        if (string == null) {
+            if (array != null) {
+                string = new String(array, offset, length, StandardCharsets.UTF_8);
+            } else {
+                byte[] copy = new byte[length];
+                for (int i = 0; i < length; i++) {
+                    copy[i] = buffer.get(offset + i);
+                }
+                string = new String(copy, StandardCharsets.UTF_8);
+            }
+        }
+        return string;
+    }
+}
@@ -0,0 +1,56 @@
+package valuestreams;
+
+/**
+ * Searches on any CharSequence which compare chars one by one,
+ * instead of converting the sequences to Strings first. Strings
+ * are still searched with the String methods.
+ */
+public final class CharSequences {
+    private CharSequences() {}
+
+    /**
+     * @param text The text to search in
+     * @param sequence The text to search for
+     * @return The index of the first occurrence of the sequence in
+     * the text, or -1 if there is none
+     */
+    public static int indexOf(CharSequence text, CharSequence sequence) {
+        if (text instanceof String && sequence instanceof String) {
+            return ((String) text).indexOf((String) sequence);
+        }
+
+        for (int i = 0, last = text.length() - sequence.length(); i <= last; i++) {
+            if (regionMatches(text, i, sequence)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @param text The text to check
+     * @param prefix The expected start of the text
+     * @return True if the text starts with the prefix
+     */
+    public static boolean startsWith(CharSequence text, CharSequence prefix) {
+        return text.length() >= prefix.length() && regionMatches(text, 0, prefix);
+    }
+
+    /**
+     * @param text The text to check
+     * @param position The index in the text at which to compare,
+     *                 which must leave room for the other text
+     * @param other The text to compare against
+     * @return True if the chars of the text at the position are
+     * those of the other text
+     */
+    public static boolean regionMatches(CharSequence text, int position, CharSequence other) {
+        for (int i = 0, n = other.length(); i < n; i++) {
+            if (text.charAt(position + i) != other.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
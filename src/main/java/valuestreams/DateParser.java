@@ -0,0 +1,174 @@
+package valuestreams;
+
+import java.text.Format;
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parses dates for DateValue.of(String, String). The most common
+ * layouts are parsed by hand, and any other pattern is parsed with
+ * the cached Format of a DateTimeFormatter. Invalid input results in null rather
+ * than an exception wherever possible. Fields which the pattern
+ * doesn't cover default to the start of the day in the system
+ * time zone, like SimpleDateFormat.
+ */
+final class DateParser {
+    private static final int MAXIMUM_CACHED_FORMATS = 128;
+    // the formats of DateTimeFormatter are immutable, unlike other formats
+    private static final Map<String, Format> FORMATS = new ConcurrentHashMap<>();
+
+    private DateParser() {}
+
+    /**
+     * @param text The text to parse
+     * @param pattern A DateTimeFormatter pattern
+     * @return The parsed date, or null if the text doesn't
+     * match the pattern.
+     * @throws IllegalArgumentException If the pattern is invalid
+     */
+    static Date parse(String text, String pattern) {
+        Date date = parseKnownLayout(text, pattern);
+        return date != null ? date : parseWithFormat(text, format(pattern));
+    }
+
+    /**
+     * Handles fully valid input of a few fixed-width layouts.
+     * Anything else, including dates which are out of range,
+     * is left to the formatter so that both paths agree.
+     */
+    private static Date parseKnownLayout(String text, String pattern) {
+        switch (pattern) {
+            case "yyyy-MM-dd":
+                return text.length() == 10 && text.charAt(4) == '-' && text.charAt(7) == '-'
+                        ? toDate(digits(text, 0, 4), digits(text, 5, 2), digits(text, 8, 2), 0, 0, 0, 0)
+                        : null;
+            case "yyyyMMdd":
+                return text.length() == 8
+                        ? toDate(digits(text, 0, 4), digits(text, 4, 2), digits(text, 6, 2), 0, 0, 0, 0)
+                        : null;
+            case "yyyy-MM-dd'T'HH:mm:ss":
+                return text.length() == 19 && isIsoDateTime(text, 'T')
+                        ? toDate(text, 0)
+                        : null;
+            case "yyyy-MM-dd HH:mm:ss":
+                return text.length() == 19 && isIsoDateTime(text, ' ')
+                        ? toDate(text, 0)
+                        : null;
+            case "yyyy-MM-dd'T'HH:mm:ss.SSS":
+                return text.length() == 23 && isIsoDateTime(text, 'T') && text.charAt(19) == '.'
+                        ? toDate(text, digits(text, 20, 3))
+                        : null;
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isIsoDateTime(String text, char separator) {
+        return text.charAt(4) == '-' && text.charAt(7) == '-' && text.charAt(10) == separator
+                && text.charAt(13) == ':' && text.charAt(16) == ':';
+    }
+
+    private static Date toDate(String text, int millis) {
+        return toDate(digits(text, 0, 4), digits(text, 5, 2), digits(text, 8, 2),
+                digits(text, 11, 2), digits(text, 14, 2), digits(text, 17, 2), millis);
+    }
+
+    private static Date toDate(int year, int month, int day, int hour, int minute, int second, int millis) {
+        // yyyy is the year of the era, which starts at 1
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 || millis < 0) {
+            return null;
+        }
+
+        long localMillis = EpochCalendar.epochDay(year, month, day) * EpochCalendar.MILLIS_PER_DAY
+                + ((hour * 60L + minute) * 60 + second) * 1000 + millis;
+        return new Date(ZoneOffsets.of(ZoneId.systemDefault()).localToEpochMillis(localMillis));
+    }
+
+    static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * @return The value of a run of ASCII digits, or -1 if any
+     * of the characters isn't a digit.
+     */
+    private static int digits(String text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static Format format(String pattern) {
+        Format format = FORMATS.get(pattern);
+
+        if (format == null) {
+            format = DateTimeFormatter.ofPattern(pattern).toFormat();
+            if (FORMATS.size() < MAXIMUM_CACHED_FORMATS) {
+                FORMATS.putIfAbsent(pattern, format);
+            }
+        }
+
+        return format;
+    }
+
+    private static Date parseWithFormat(String text, Format format) {
+        // text which doesn't fit the layout or holds invalid fields results in null
+        ParsePosition position = new ParsePosition(0);
+        TemporalAccessor parsed = (TemporalAccessor) format.parseObject(text, position);
+        if (parsed == null || position.getIndex() != text.length()) {
+            return null;
+        }
+
+        try {
+            LocalDate date = parsed.query(TemporalQueries.localDate());
+            if (date == null) {
+                date = LocalDate.of(field(parsed, ChronoField.YEAR, 1970), field(parsed, ChronoField.MONTH_OF_YEAR, 1),
+                        field(parsed, ChronoField.DAY_OF_MONTH, 1));
+            }
+
+            LocalTime time = parsed.query(TemporalQueries.localTime());
+            long localMillis = date.toEpochDay() * EpochCalendar.MILLIS_PER_DAY
+                    + (time != null ? time.toNanoOfDay() / 1_000_000 : 0);
+
+            ZoneId zone = parsed.query(TemporalQueries.zone());
+            if (zone instanceof ZoneOffset) {
+                return new Date(localMillis - ((ZoneOffset) zone).getTotalSeconds() * 1000L);
+            }
+            return new Date(ZoneOffsets.of(zone != null ? zone : ZoneId.systemDefault()).localToEpochMillis(localMillis));
+        } catch (DateTimeException ex) {
+            return null;
+        }
+    }
+
+    private static int field(TemporalAccessor parsed, ChronoField field, int defaultValue) {
+        return parsed.isSupported(field) ? parsed.get(field) : defaultValue;
+    }
+}
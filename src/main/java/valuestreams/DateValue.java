@@ -1,7 +1,5 @@
 package valuestreams;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.Month;
 import java.time.ZoneId;
@@ -11,6 +9,8 @@ import java.util.Objects;
 import java.util.function.Function;
 
 public class DateValue extends AbstractValue<Date> {
+    private static final DateValue EMPTY = new DateValue();
+
     private DateValue(Date value) {
         super(value);
     }
@@ -30,17 +30,30 @@ public class DateValue extends AbstractValue<Date> {
         return new DateValue(new GregorianCalendar(year, month.getValue(), day).getTime());
     }
 
+    /**
+     * Parses a date using a DateTimeFormatter pattern. The
+     * formatter of every pattern is created once and cached, and
+     * the ISO-8601 layouts (yyyy-MM-dd, yyyy-MM-dd'T'HH:mm:ss,
+     * yyyy-MM-dd'T'HH:mm:ss.SSS, and yyyy-MM-dd HH:mm:ss) as
+     * well as yyyyMMdd are parsed without a formatter. Fields
+     * missing from the pattern default to the start of the day
+     * in the system time zone.
+     * @param dateString The text to parse
+     * @param format The pattern of the text
+     * @return A value containing the parsed date, or an empty
+     * value if the text doesn't match the pattern.
+     */
     public static DateValue of(String dateString, String format) {
-        SimpleDateFormat formatter = new SimpleDateFormat(format);
-        try {
-            return new DateValue(formatter.parse(dateString));
-        } catch (ParseException e) {
-            return DateValue.empty();
-        }
+        Date date = DateParser.parse(dateString, format);
+        return date != null ? new DateValue(date) : DateValue.empty();
     }
 
+    /**
+     * @return The shared empty instance. Sharing it is safe
+     * since an empty value can never become present.
+     */
     public static DateValue empty() {
-        return new DateValue();
+        return EMPTY;
     }
 
     private static LocalDate getLocalDate(Date date) {
@@ -88,10 +101,21 @@ public class DateValue extends AbstractValue<Date> {
     }
 
     public DateValue past() {
-        return isBefore(new Date());
+        return validate(d -> d.getTime() < System.currentTimeMillis());
     }
 
     public DateValue future() {
-        return isAfter(new Date());
+        return validate(d -> d.getTime() > System.currentTimeMillis());
+    }
+
+    /**
+     * Converts the value to a primitive-backed timestamp.
+     * @param zone The zone used for calendar checks on the
+     *             timestamp
+     * @return A new TimestampValue for the same instant, or
+     * an empty one if this value is empty.
+     */
+    public TimestampValue toTimestamp(ZoneId zone) {
+        return TimestampValue.from(this, zone);
     }
 }
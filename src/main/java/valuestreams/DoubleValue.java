@@ -1,6 +1,8 @@
 package valuestreams;
 
 public class DoubleValue extends NumericalValue<Double> {
+    private static final DoubleValue EMPTY = new DoubleValue();
+
     public DoubleValue(Double value) {
         super(value);
     }
@@ -12,15 +14,41 @@ public class DoubleValue extends NumericalValue<Double> {
         return new DoubleValue(value);
     }
 
+    /**
+     * @return The shared empty instance. Sharing it is safe
+     * since an empty value can never become present.
+     */
     public static DoubleValue empty() {
-        return new DoubleValue();
+        return EMPTY;
     }
 
     public static DoubleValue fromString(String str) {
-        try {
-            return DoubleValue.of(Double.parseDouble(str));
-        } catch (NumberFormatException ignored) {
-            return DoubleValue.empty();
-        }
+        return str == null ? DoubleValue.empty() : fromString(str, 0, str.length());
+    }
+
+    public static DoubleValue fromString(CharSequence str) {
+        return str == null ? DoubleValue.empty() : fromString(str, 0, str.length());
+    }
+
+    /**
+     * Parses a double from a range of characters without
+     * creating a sub-string or throwing an exception.
+     * @param str The characters to parse
+     * @param start The index of the first character
+     * @param end The index after the last character
+     * @return A value containing the parsed double, or an
+     * empty value if the range isn't a valid double.
+     */
+    public static DoubleValue fromString(CharSequence str, int start, int end) {
+        return NumberParser.parseDouble(str, start, end).boxed();
+    }
+
+    /**
+     * Unboxes the value into its primitive-backed equivalent.
+     * @return A new PrimitiveDoubleValue holding the same value,
+     * or an empty one if this value is empty.
+     */
+    public PrimitiveDoubleValue toPrimitive() {
+        return PrimitiveDoubleValue.from(this);
     }
 }
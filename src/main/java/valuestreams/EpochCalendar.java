@@ -0,0 +1,58 @@
+package valuestreams;
+
+/**
+ * Calendar arithmetic on primitive epoch values, used to check
+ * calendar fields of a timestamp without creating date objects.
+ * The conversions between epoch days and year/month/day follow
+ * the proleptic Gregorian calendar, like java.time.LocalDate.
+ */
+final class EpochCalendar {
+    static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private EpochCalendar() {}
+
+    static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1L : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+
+    static int year(long epochDay) {
+        long shifted = epochDay + 719_468;
+        long era = Math.floorDiv(shifted, 146_097);
+        long dayOfEra = shifted - era * 146_097;
+        long yearOfEra = yearOfEra(dayOfEra);
+        int month = month(dayOfEra, yearOfEra);
+        return (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+    }
+
+    static int month(long epochDay) {
+        long shifted = epochDay + 719_468;
+        long dayOfEra = shifted - Math.floorDiv(shifted, 146_097) * 146_097;
+        return month(dayOfEra, yearOfEra(dayOfEra));
+    }
+
+    static int dayOfMonth(long epochDay) {
+        long shifted = epochDay + 719_468;
+        long dayOfEra = shifted - Math.floorDiv(shifted, 146_097) * 146_097;
+        long dayOfYear = dayOfYear(dayOfEra, yearOfEra(dayOfEra));
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        return (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+    }
+
+    private static long yearOfEra(long dayOfEra) {
+        return (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+    }
+
+    private static long dayOfYear(long dayOfEra, long yearOfEra) {
+        return dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    }
+
+    private static int month(long dayOfEra, long yearOfEra) {
+        long shiftedMonth = (5 * dayOfYear(dayOfEra, yearOfEra) + 2) / 153;
+        return (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+    }
+}
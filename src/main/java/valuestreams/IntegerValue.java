@@ -1,6 +1,8 @@
 package valuestreams;
 
 public class IntegerValue extends NumericalValue<Integer> {
+    private static final IntegerValue EMPTY = new IntegerValue();
+
     public IntegerValue(Integer value) {
         super(value);
     }
@@ -12,15 +14,42 @@ public class IntegerValue extends NumericalValue<Integer> {
         return new IntegerValue(value);
     }
 
+    /**
+     * @return The shared empty instance. Sharing it is safe
+     * since an empty value can never become present.
+     */
     public static IntegerValue empty() {
-        return new IntegerValue();
+        return EMPTY;
     }
 
     public static IntegerValue fromString(String str) {
-        try {
-            return IntegerValue.of(Integer.parseInt(str));
-        } catch (NumberFormatException ignored) {
-            return IntegerValue.empty();
-        }
+        return str == null ? IntegerValue.empty() : fromString(str, 0, str.length());
+    }
+
+    public static IntegerValue fromString(CharSequence str) {
+        return str == null ? IntegerValue.empty() : fromString(str, 0, str.length());
+    }
+
+    /**
+     * Parses an integer from a range of characters without
+     * creating a sub-string or throwing an exception.
+     * @param str The characters to parse
+     * @param start The index of the first character
+     * @param end The index after the last character
+     * @return A value containing the parsed integer, or an
+     * empty value if the range isn't a valid integer.
+     */
+    public static IntegerValue fromString(CharSequence str, int start, int end) {
+        long parsed = NumberParser.parseInt(str, start, end);
+        return parsed == NumberParser.INVALID_INT ? IntegerValue.empty() : IntegerValue.of((int) parsed);
+    }
+
+    /**
+     * Unboxes the value into its primitive-backed equivalent.
+     * @return A new PrimitiveIntValue holding the same value,
+     * or an empty one if this value is empty.
+     */
+    public PrimitiveIntValue toPrimitive() {
+        return PrimitiveIntValue.from(this);
     }
 }
@@ -0,0 +1,330 @@
+package valuestreams;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.function.Predicate;
+
+/**
+ * An Aho-Corasick automaton which finds any of a set of keywords
+ * in a single pass over a text, however many keywords there are.
+ * The automaton is built once and kept in flat arrays: states are
+ * numbered breadth-first, the children of a state are consecutive
+ * states whose labels are sorted, and every state links to the
+ * longest proper suffix of its path which is also in the trie.
+ * Case-insensitive matchers fold every char of the keywords and
+ * of the text to lowercase, one char at a time. Matchers are
+ * immutable and can be shared between threads.
+ * {@code
+ * KeywordMatcher denied = KeywordMatcher.caseInsensitive(denyList);
+ * boolean flagged = StringValue.of(comment).containsAny(denied).isPresent();
+ * }
+ */
+public final class KeywordMatcher implements Predicate<CharSequence> {
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+    private static final int ASCII = 128;
+
+    private final String[] keywords;
+    private final boolean ignoreCase;
+
+    private final char[] label;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final int[] fail;
+    // the keyword whose path ends at a state, and the longest keyword ending at any of its suffixes
+    private final int[] keyword;
+    private final int[] output;
+    private final int[] rootAscii;
+
+    private KeywordMatcher(String[] originals, boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+
+        String[] folded = new String[originals.length];
+        for (int i = 0; i < originals.length; i++) {
+            if (originals[i].isEmpty()) {
+                throw new IllegalArgumentException("Keywords can't be empty");
+            }
+            folded[i] = ignoreCase ? fold(originals[i]) : originals[i];
+        }
+
+        Integer[] order = new Integer[originals.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> folded[i]));
+
+        int unique = 0;
+        String[] sorted = new String[order.length];
+        String[] kept = new String[order.length];
+        for (Integer index : order) {
+            if (unique == 0 || !sorted[unique - 1].equals(folded[index])) {
+                sorted[unique] = folded[index];
+                kept[unique++] = originals[index];
+            }
+        }
+        this.keywords = Arrays.copyOf(kept, unique);
+
+        int capacity = 1;
+        for (int i = 0; i < unique; i++) {
+            capacity += sorted[i].length();
+        }
+
+        char[] labels = new char[capacity];
+        int[] firsts = new int[capacity];
+        int[] counts = new int[capacity];
+        int[] keywordAt = new int[capacity];
+        Arrays.fill(keywordAt, NONE);
+
+        int states = buildTrie(Arrays.copyOf(sorted, unique), labels, firsts, counts, keywordAt);
+
+        this.label = Arrays.copyOf(labels, states);
+        this.firstChild = Arrays.copyOf(firsts, states);
+        this.childCount = Arrays.copyOf(counts, states);
+        this.keyword = Arrays.copyOf(keywordAt, states);
+        this.fail = new int[states];
+        this.output = new int[states];
+        this.rootAscii = new int[ASCII];
+
+        Arrays.fill(rootAscii, NONE);
+        for (int i = 0; i < childCount[ROOT]; i++) {
+            int child = firstChild[ROOT] + i;
+            if (label[child] < ASCII) {
+                rootAscii[label[child]] = child;
+            }
+        }
+
+        linkSuffixes();
+    }
+
+    /**
+     * Creates the states breadth-first from the sorted keywords.
+     * A state stands for the keywords in [from, to) which share
+     * its path, so its children are the runs of those keywords
+     * which have the same next char.
+     * @return The number of states
+     */
+    private static int buildTrie(String[] sorted, char[] labels, int[] firsts, int[] counts, int[] keywordAt) {
+        ArrayDeque<int[]> queue = new ArrayDeque<>();
+        // state, from, to, depth
+        queue.add(new int[]{ROOT, 0, sorted.length, 0});
+        int states = 1;
+
+        while (!queue.isEmpty()) {
+            int[] node = queue.poll();
+            int state = node[0];
+            int from = node[1];
+            int to = node[2];
+            int depth = node[3];
+
+            // the keyword which ends here sorts before the longer ones
+            if (from < to && sorted[from].length() == depth) {
+                keywordAt[state] = from;
+                from++;
+            }
+
+            firsts[state] = states;
+            while (from < to) {
+                char c = sorted[from].charAt(depth);
+                int end = from + 1;
+                while (end < to && sorted[end].charAt(depth) == c) {
+                    end++;
+                }
+
+                labels[states] = c;
+                queue.add(new int[]{states, from, end, depth + 1});
+                states++;
+                counts[state]++;
+                from = end;
+            }
+        }
+
+        return states;
+    }
+
+    /**
+     * Computes the suffix links and outputs in breadth-first
+     * order, so that the states a link can point to are done.
+     */
+    private void linkSuffixes() {
+        output[ROOT] = keyword[ROOT];
+
+        for (int state = 0; state < label.length; state++) {
+            for (int i = 0; i < childCount[state]; i++) {
+                int child = firstChild[state] + i;
+                int link = ROOT;
+
+                if (state != ROOT) {
+                    int candidate = fail[state];
+                    while (true) {
+                        int next = transition(candidate, label[child]);
+                        if (next != NONE) {
+                            link = next;
+                            break;
+                        }
+                        if (candidate == ROOT) {
+                            break;
+                        }
+                        candidate = fail[candidate];
+                    }
+                }
+
+                fail[child] = link;
+                output[child] = keyword[child] != NONE ? keyword[child] : output[link];
+            }
+        }
+    }
+
+    public static KeywordMatcher of(String... keywords) {
+        return new KeywordMatcher(keywords.clone(), false);
+    }
+
+    public static KeywordMatcher of(Collection<String> keywords) {
+        return new KeywordMatcher(keywords.toArray(new String[0]), false);
+    }
+
+    /**
+     * @param keywords The keywords to look for, in any case
+     * @return A matcher which ignores the case of the keywords and
+     * of the texts
+     */
+    public static KeywordMatcher caseInsensitive(String... keywords) {
+        return new KeywordMatcher(keywords.clone(), true);
+    }
+
+    public static KeywordMatcher caseInsensitive(Collection<String> keywords) {
+        return new KeywordMatcher(keywords.toArray(new String[0]), true);
+    }
+
+    /**
+     * @return The number of distinct keywords
+     */
+    public int keywordCount() {
+        return keywords.length;
+    }
+
+    /**
+     * @return The number of states of the automaton
+     */
+    public int stateCount() {
+        return label.length;
+    }
+
+    private int transition(int state, char c) {
+        if (state == ROOT && c < ASCII) {
+            return rootAscii[c];
+        }
+
+        int low = firstChild[state];
+        int high = low + childCount[state] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char found = label[middle];
+            if (found < c) {
+                low = middle + 1;
+            } else if (found > c) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return NONE;
+    }
+
+    private int step(int state, char c) {
+        while (true) {
+            int next = transition(state, c);
+            if (next != NONE) {
+                return next;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = fail[state];
+        }
+    }
+
+    /**
+     * @return The index of the first keyword found in the text, by
+     * the position where it ends, or NONE
+     */
+    private int find(CharSequence text) {
+        int state = ROOT;
+
+        for (int i = 0, n = text.length(); i < n; i++) {
+            state = step(state, foldIfNeeded(text.charAt(i)));
+            if (output[state] != NONE) {
+                return output[state];
+            }
+        }
+
+        return NONE;
+    }
+
+    /**
+     * @param text The text to search
+     * @return True if any keyword occurs in the text
+     */
+    public boolean containsAny(CharSequence text) {
+        return find(text) != NONE;
+    }
+
+    /**
+     * @param text The text to search
+     * @return The keyword which ends first in the text, as it was
+     * given, or null if there is none
+     */
+    public String findFirst(CharSequence text) {
+        int found = find(text);
+        return found != NONE ? keywords[found] : null;
+    }
+
+    /**
+     * @param text The text to check
+     * @return True if the whole text is one of the keywords
+     */
+    public boolean matchesAny(CharSequence text) {
+        int state = ROOT;
+
+        for (int i = 0, n = text.length(); i < n && state != NONE; i++) {
+            state = transition(state, foldIfNeeded(text.charAt(i)));
+        }
+
+        return state != NONE && keyword[state] != NONE;
+    }
+
+    /**
+     * Same as containsAny().
+     */
+    @Override
+    public boolean test(CharSequence text) {
+        return containsAny(text);
+    }
+
+    private char foldIfNeeded(char c) {
+        return ignoreCase ? fold(c) : c;
+    }
+
+    private static char fold(char c) {
+        if (c < ASCII) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        // like String.equalsIgnoreCase, which also maps some upper case chars through their title case
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static String fold(String keyword) {
+        char[] chars = keyword.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public String toString() {
+        return "KeywordMatcher[keywords=" + keywords.length + ", states=" + label.length
+                + (ignoreCase ? ", ignoring case" : "") + "]";
+    }
+}
@@ -1,6 +1,8 @@
 package valuestreams;
 
 public class LongValue extends NumericalValue<Long> {
+    private static final LongValue EMPTY = new LongValue();
+
     public LongValue(Long value) {
         super(value);
     }
@@ -12,15 +14,41 @@ public class LongValue extends NumericalValue<Long> {
         return new LongValue(value);
     }
 
+    /**
+     * @return The shared empty instance. Sharing it is safe
+     * since an empty value can never become present.
+     */
     public static LongValue empty() {
-        return new LongValue();
+        return EMPTY;
     }
 
     public static LongValue fromString(String str) {
-        try {
-            return LongValue.of(Long.parseLong(str));
-        } catch (NumberFormatException ignored) {
-            return LongValue.empty();
-        }
+        return str == null ? LongValue.empty() : fromString(str, 0, str.length());
+    }
+
+    public static LongValue fromString(CharSequence str) {
+        return str == null ? LongValue.empty() : fromString(str, 0, str.length());
+    }
+
+    /**
+     * Parses a long from a range of characters without
+     * creating a sub-string or throwing an exception.
+     * @param str The characters to parse
+     * @param start The index of the first character
+     * @param end The index after the last character
+     * @return A value containing the parsed long, or an
+     * empty value if the range isn't a valid long.
+     */
+    public static LongValue fromString(CharSequence str, int start, int end) {
+        return NumberParser.parseLong(str, start, end).boxed();
+    }
+
+    /**
+     * Unboxes the value into its primitive-backed equivalent.
+     * @return A new PrimitiveLongValue holding the same value,
+     * or an empty one if this value is empty.
+     */
+    public PrimitiveLongValue toPrimitive() {
+        return PrimitiveLongValue.from(this);
     }
 }
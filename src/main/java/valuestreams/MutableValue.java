@@ -0,0 +1,147 @@
+package valuestreams;
+
+import valuestreams.functions.CheckedFunction;
+import valuestreams.functions.CheckedPredicate;
+
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A value holder which can be refilled and reused, meant for hot
+ * loops where creating a wrapper per element is too expensive. It
+ * offers the same validation and mapping functions as Value, but
+ * all of them are done in-place and return this same instance.
+ * Since the holder is reused, mapping keeps the type of the held
+ * value; use Value to map to a different type.
+ * {@code
+ * MutableValue<String> holder = MutableValue.create();
+ * for (String line : lines) {
+ *     String trimmed = holder.set(line).map(String::trim).validate(s -> !s.isEmpty()).getNullable();
+ * }
+ * }
+ * Instances are not thread-safe.
+ * @param <T> The type of the currently held value.
+ */
+public final class MutableValue<T> extends AbstractValue<T> {
+    private MutableValue() {
+        super();
+    }
+
+    /**
+     * @param <T> The type of the value to hold
+     * @return A new empty holder
+     */
+    public static <T> MutableValue<T> create() {
+        return new MutableValue<>();
+    }
+
+    /**
+     * Replaces the held value.
+     * @param value The new value, or null to empty the holder
+     * @return The same instance.
+     */
+    public MutableValue<T> set(T value) {
+        this.value = value;
+        return this;
+    }
+
+    /**
+     * Empties the holder.
+     * @return The same instance.
+     */
+    public MutableValue<T> clear() {
+        this.value = null;
+        return this;
+    }
+
+    /**
+     * Applies a predicate on the value, and empties
+     * it if the predicate returned false.
+     * @param validator A predicate whose type matches
+     *                  that of the value.
+     * @return The same instance.
+     */
+    public MutableValue<T> validate(Predicate<T> validator) {
+        Objects.requireNonNull(validator);
+
+        if (!isEmpty() && !validator.test(value)) {
+            this.value = null;
+        }
+
+        return this;
+    }
+
+    /**
+     * Applies a predicate on the value, and empties
+     * it if the predicate returned false or threw an
+     * exception.
+     * @param validator A predicate whose type matches
+     *                  that of the value.
+     * @return The same instance.
+     */
+    public MutableValue<T> validateWithException(CheckedPredicate<T> validator) {
+        Objects.requireNonNull(validator);
+
+        if (!isEmpty()) {
+            try {
+                if (!validator.test(value)) {
+                    this.value = null;
+                }
+            } catch (Exception ex) {
+                this.value = null;
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Applies a mapper on the value in-place. A null
+     * result empties the holder.
+     * @param mapper The mapper to applied.
+     * @return The same instance.
+     */
+    public MutableValue<T> map(Function<T, T> mapper) {
+        Objects.requireNonNull(mapper);
+
+        if (!isEmpty()) {
+            this.value = mapper.apply(this.value);
+        }
+
+        return this;
+    }
+
+    /**
+     * Applies a mapper on the value in-place. A null
+     * result or an exception empties the holder.
+     * @param mapper The mapper to applied.
+     * @return The same instance.
+     */
+    public MutableValue<T> mapWithException(CheckedFunction<T, T> mapper) {
+        Objects.requireNonNull(mapper);
+
+        if (!isEmpty()) {
+            try {
+                this.value = mapper.apply(this.value);
+            } catch (Exception ex) {
+                this.value = null;
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * The value-stream equivalent of equals().
+     * @param other The object to compare against.
+     * @return The same instance.
+     */
+    public MutableValue<T> isEqualTo(T other) {
+        if (!isEmpty() && !value.equals(other)) {
+            this.value = null;
+        }
+
+        return this;
+    }
+}
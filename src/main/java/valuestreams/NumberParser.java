@@ -0,0 +1,328 @@
+package valuestreams;
+
+/**
+ * Number parsers which report invalid input through their
+ * return value instead of throwing NumberFormatException. They
+ * accept the same syntax as Integer.parseInt, Long.parseLong,
+ * and Double.parseDouble.
+ */
+final class NumberParser {
+    /**
+     * Returned by parseInt() for invalid input. It's outside
+     * the range of int so it can't clash with a parsed value.
+     */
+    static final long INVALID_INT = Long.MIN_VALUE;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private NumberParser() {}
+
+    /**
+     * Parses a decimal int from a range of characters.
+     * @return The parsed value, or INVALID_INT if the range
+     * doesn't hold a valid int.
+     */
+    static long parseInt(CharSequence s, int start, int end) {
+        checkRange(s, start, end);
+        if (start == end) {
+            return INVALID_INT;
+        }
+
+        int i = start;
+        boolean negative = false;
+        int limit = -Integer.MAX_VALUE;
+        char first = s.charAt(i);
+
+        if (first < '0') {
+            if (first == '-') {
+                negative = true;
+                limit = Integer.MIN_VALUE;
+            } else if (first != '+') {
+                return INVALID_INT;
+            }
+
+            if (++i == end) {
+                return INVALID_INT;
+            }
+        }
+
+        int multiplicationLimit = limit / 10;
+        int result = 0;
+
+        while (i < end) {
+            int digit = digit(s.charAt(i++));
+            if (digit < 0 || result < multiplicationLimit) {
+                return INVALID_INT;
+            }
+
+            result *= 10;
+            if (result < limit + digit) {
+                return INVALID_INT;
+            }
+            result -= digit;
+        }
+
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parses a decimal long from a range of characters.
+     * @return A value holding the result, or an empty one if
+     * the range doesn't hold a valid long.
+     */
+    static PrimitiveLongValue parseLong(CharSequence s, int start, int end) {
+        checkRange(s, start, end);
+        if (start == end) {
+            return PrimitiveLongValue.empty();
+        }
+
+        int i = start;
+        boolean negative = false;
+        long limit = -Long.MAX_VALUE;
+        char first = s.charAt(i);
+
+        if (first < '0') {
+            if (first == '-') {
+                negative = true;
+                limit = Long.MIN_VALUE;
+            } else if (first != '+') {
+                return PrimitiveLongValue.empty();
+            }
+
+            if (++i == end) {
+                return PrimitiveLongValue.empty();
+            }
+        }
+
+        long multiplicationLimit = limit / 10;
+        long result = 0;
+
+        while (i < end) {
+            int digit = digit(s.charAt(i++));
+            if (digit < 0 || result < multiplicationLimit) {
+                return PrimitiveLongValue.empty();
+            }
+
+            result *= 10;
+            if (result < limit + digit) {
+                return PrimitiveLongValue.empty();
+            }
+            result -= digit;
+        }
+
+        return PrimitiveLongValue.of(negative ? result : -result);
+    }
+
+    /**
+     * Parses a double from a range of characters. Decimal
+     * numbers with up to 15 significant digits and a small
+     * exponent are converted exactly with a single
+     * multiplication or division, other valid input is handed
+     * to Double.parseDouble once its syntax has been checked, so
+     * invalid input never causes an exception to be thrown.
+     * @return A value holding the result, or an empty one if
+     * the range doesn't hold a valid double.
+     */
+    static PrimitiveDoubleValue parseDouble(CharSequence s, int start, int end) {
+        checkRange(s, start, end);
+
+        // leading and trailing whitespace is ignored, like Double.parseDouble does
+        while (start < end && s.charAt(start) <= ' ') {
+            start++;
+        }
+        while (start < end && s.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        if (start == end) {
+            return PrimitiveDoubleValue.empty();
+        }
+
+        int i = start;
+        boolean negative = false;
+        char c = s.charAt(i);
+
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            if (++i == end) {
+                return PrimitiveDoubleValue.empty();
+            }
+            c = s.charAt(i);
+        }
+
+        if (c == 'N') {
+            return matches(s, i, end, "NaN") ? PrimitiveDoubleValue.of(Double.NaN) : PrimitiveDoubleValue.empty();
+        }
+
+        if (c == 'I') {
+            return matches(s, i, end, "Infinity")
+                    ? PrimitiveDoubleValue.of(negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY)
+                    : PrimitiveDoubleValue.empty();
+        }
+
+        if (c == '0' && i + 1 < end && (s.charAt(i + 1) | 0x20) == 'x') {
+            return isHexDouble(s, i + 2, end) ? parseChecked(s, start, end) : PrimitiveDoubleValue.empty();
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean truncated = false;
+        boolean sawDigit = false;
+
+        for (; i < end && (c = s.charAt(i)) >= '0' && c <= '9'; i++) {
+            sawDigit = true;
+            if (significantDigits < 18) {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) {
+                    significantDigits++;
+                }
+            } else {
+                exponent++;
+                truncated = true;
+            }
+        }
+
+        if (i < end && s.charAt(i) == '.') {
+            for (i++; i < end && (c = s.charAt(i)) >= '0' && c <= '9'; i++) {
+                sawDigit = true;
+                if (significantDigits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) {
+                        significantDigits++;
+                    }
+                    exponent--;
+                } else {
+                    truncated = true;
+                }
+            }
+        }
+
+        if (!sawDigit) {
+            return PrimitiveDoubleValue.empty();
+        }
+
+        if (i < end && (s.charAt(i) | 0x20) == 'e') {
+            if (++i == end) {
+                return PrimitiveDoubleValue.empty();
+            }
+
+            boolean negativeExponent = false;
+            c = s.charAt(i);
+            if (c == '-' || c == '+') {
+                negativeExponent = c == '-';
+                if (++i == end) {
+                    return PrimitiveDoubleValue.empty();
+                }
+            }
+
+            int explicitExponent = 0;
+            boolean sawExponentDigit = false;
+            for (; i < end && (c = s.charAt(i)) >= '0' && c <= '9'; i++) {
+                sawExponentDigit = true;
+                if (explicitExponent < 100_000) {
+                    explicitExponent = explicitExponent * 10 + (c - '0');
+                }
+            }
+
+            if (!sawExponentDigit) {
+                return PrimitiveDoubleValue.empty();
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+
+        // a trailing type suffix is accepted by Double.parseDouble
+        if (i < end && !(i == end - 1 && "dDfF".indexOf(s.charAt(i)) >= 0)) {
+            return PrimitiveDoubleValue.empty();
+        }
+
+        if (mantissa == 0) {
+            return PrimitiveDoubleValue.of(negative ? -0.0 : 0.0);
+        }
+
+        if (!truncated && significantDigits <= 15 && exponent >= -22 && exponent <= 22) {
+            double value = exponent < 0
+                    ? mantissa / POWERS_OF_TEN[-exponent]
+                    : mantissa * POWERS_OF_TEN[exponent];
+            return PrimitiveDoubleValue.of(negative ? -value : value);
+        }
+
+        return parseChecked(s, start, end);
+    }
+
+    /**
+     * Hands a range whose syntax has already been checked to
+     * Double.parseDouble, for the cases which can't be converted
+     * exactly here.
+     */
+    private static PrimitiveDoubleValue parseChecked(CharSequence s, int start, int end) {
+        return PrimitiveDoubleValue.of(Double.parseDouble(s.subSequence(start, end).toString()));
+    }
+
+    private static boolean matches(CharSequence s, int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < expected.length(); i++) {
+            if (s.charAt(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks the syntax of a hexadecimal floating-point number
+     * following its 0x prefix, which has a binary exponent that
+     * isn't optional.
+     */
+    private static boolean isHexDouble(CharSequence s, int i, int end) {
+        boolean sawDigit = false;
+        for (; i < end && isHexDigit(s.charAt(i)); i++) {
+            sawDigit = true;
+        }
+
+        if (i < end && s.charAt(i) == '.') {
+            for (i++; i < end && isHexDigit(s.charAt(i)); i++) {
+                sawDigit = true;
+            }
+        }
+
+        if (!sawDigit || i == end || (s.charAt(i) | 0x20) != 'p') {
+            return false;
+        }
+
+        if (++i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            i++;
+        }
+
+        boolean sawExponentDigit = false;
+        for (; i < end && s.charAt(i) >= '0' && s.charAt(i) <= '9'; i++) {
+            sawExponentDigit = true;
+        }
+
+        return sawExponentDigit && (i == end || (i == end - 1 && "dDfF".indexOf(s.charAt(i)) >= 0));
+    }
+
+    private static boolean isHexDigit(char c) {
+        return (c >= '0' && c <= '9') || ((c | 0x20) >= 'a' && (c | 0x20) <= 'f');
+    }
+
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        return c < 128 ? -1 : Character.digit(c, 10);
+    }
+
+    private static void checkRange(CharSequence s, int start, int end) {
+        if (start < 0 || end > s.length() || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + s.length());
+        }
+    }
+}
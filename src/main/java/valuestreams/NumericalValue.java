@@ -1,11 +1,16 @@
 package valuestreams;
 
+import valuestreams.rules.Range;
+
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
 public class NumericalValue<T extends Number & Comparable<T>> extends AbstractValue<T> {
+    @SuppressWarnings("rawtypes")
+    private static final NumericalValue EMPTY = new NumericalValue();
+
     protected NumericalValue(T value) {
         super(value);
     }
@@ -21,8 +26,9 @@ public class NumericalValue<T extends Number & Comparable<T>> extends AbstractVa
         return new NumericalValue<>(optional.orElse(null));
     }
 
+    @SuppressWarnings("unchecked")
     protected static <T extends Number & Comparable<T>> NumericalValue<T> empty() {
-        return new NumericalValue<T>();
+        return (NumericalValue<T>) EMPTY;
     }
 
     public NumericalValue<T> validate(Predicate<T> validator) {
@@ -68,6 +74,16 @@ public class NumericalValue<T extends Number & Comparable<T>> extends AbstractVa
         return validate(v -> v.compareTo(lowerLimit) >= 0);
     }
 
+    /**
+     * Checks that the value falls within a range, into which any
+     * number of checks were merged when it was built.
+     * @param range The range to check against
+     * @return The same instance.
+     */
+    public NumericalValue<T> within(Range<T> range) {
+        return validate(range);
+    }
+
     public NumericalValue<T> betweenInclusive(T lowerLimit, T upperLimit) {
         return validate(v -> v.compareTo(upperLimit) <= 0 && v.compareTo(lowerLimit) >= 0);
     }
@@ -0,0 +1,140 @@
+package valuestreams;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * A bounded, thread-safe cache of compiled regular expressions.
+ * When the cache is full, an entry which wasn't used since the
+ * last eviction pass is dropped (second-chance eviction). Hits,
+ * misses, and evictions are counted to help sizing the cache.
+ * StringValue.matches(String) uses the shared instance.
+ */
+public final class PatternCache {
+    private static final int DEFAULT_MAXIMUM_SIZE = 256;
+    private static final PatternCache SHARED = new PatternCache(DEFAULT_MAXIMUM_SIZE);
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maximumSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public PatternCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * @return The cache used by StringValue.matches(String).
+     */
+    public static PatternCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Gets the compiled form of a regular expression, compiling
+     * and caching it if it isn't cached already.
+     * @param regex The regular expression
+     * @return The compiled pattern
+     * @throws java.util.regex.PatternSyntaxException If the
+     * expression is invalid
+     */
+    public Pattern get(String regex) {
+        Entry entry = entries.get(regex);
+
+        if (entry != null) {
+            hits.increment();
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            return entry.pattern;
+        }
+
+        misses.increment();
+        Entry compiled = new Entry(Pattern.compile(regex));
+        entry = entries.putIfAbsent(regex, compiled);
+
+        if (entry != null) {
+            return entry.pattern;
+        }
+
+        if (entries.size() > maximumSize) {
+            evict();
+        }
+
+        return compiled.pattern;
+    }
+
+    private synchronized void evict() {
+        while (entries.size() > maximumSize) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            boolean evicted = false;
+
+            while (iterator.hasNext() && !evicted) {
+                Entry entry = iterator.next();
+
+                if (entry.referenced) {
+                    entry.referenced = false;
+                } else {
+                    iterator.remove();
+                    evictions.increment();
+                    evicted = true;
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Resets the hit, miss, and eviction counters without
+     * touching the cached patterns.
+     */
+    public void resetStats() {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    /**
+     * Removes all cached patterns.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private static final class Entry {
+        final Pattern pattern;
+        volatile boolean referenced;
+
+        Entry(Pattern pattern) {
+            this.pattern = pattern;
+            this.referenced = true;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package valuestreams;
+
+import valuestreams.rules.DoubleRange;
+
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * A double wrapper which never boxes its value. It offers
+ * the same checks as NumericalValue, but validation and
+ * mapping work directly on the primitive and are performed
+ * in-place. Comparisons follow the primitive operators, so
+ * NaN fails every check and -0.0 is equal to 0.0.
+ */
+public class PrimitiveDoubleValue {
+    private static final PrimitiveDoubleValue EMPTY = new PrimitiveDoubleValue(0, false);
+
+    private double value;
+    private boolean present;
+
+    private PrimitiveDoubleValue(double value, boolean present) {
+        this.value = value;
+        this.present = present;
+    }
+
+    public static PrimitiveDoubleValue of(double value) {
+        return new PrimitiveDoubleValue(value, true);
+    }
+
+    /**
+     * @return The shared empty instance. Sharing it is safe
+     * since an empty value can never become present.
+     */
+    public static PrimitiveDoubleValue empty() {
+        return EMPTY;
+    }
+
+    public static PrimitiveDoubleValue fromString(CharSequence str) {
+        return str == null ? empty() : fromString(str, 0, str.length());
+    }
+
+    /**
+     * Parses a double from a range of characters without
+     * creating a sub-string or throwing an exception.
+     * @param str The characters to parse
+     * @param start The index of the first character
+     * @param end The index after the last character
+     * @return A value containing the parsed double, or an
+     * empty value if the range isn't a valid double.
+     */
+    public static PrimitiveDoubleValue fromString(CharSequence str, int start, int end) {
+        return NumberParser.parseDouble(str, start, end);
+    }
+
+    /**
+     * Unboxes the content of an DoubleValue.
+     * @param boxed The value to convert.
+     * @return A new instance holding the same value, or
+     * an empty one if the boxed value is empty.
+     */
+    public static PrimitiveDoubleValue from(DoubleValue boxed) {
+        return boxed.isEmpty() ? empty() : of(boxed.value);
+    }
+
+    public boolean isPresent() {
+        return present;
+    }
+
+    public boolean isEmpty() {
+        return !present;
+    }
+
+    /**
+     * Applies a predicate on the value, and empties
+     * it if the predicate returned false.
+     * @param validator The predicate to apply.
+     * @return The same instance.
+     */
+    public PrimitiveDoubleValue validate(DoublePredicate validator) {
+        if (present) {
+            present = validator.test(value);
+        }
+
+        return this;
+    }
+
+    /**
+     * Applies a mapper on the value in-place.
+     * @param mapper The mapper to apply.
+     * @return The same instance.
+     */
+    public PrimitiveDoubleValue map(DoubleUnaryOperator mapper) {
+        Objects.requireNonNull(mapper);
+
+        if (present) {
+            value = mapper.applyAsDouble(value);
+        }
+
+        return this;
+    }
+
+    public <R> Value<R> mapToObj(DoubleFunction<R> mapper) {
+        Objects.requireNonNull(mapper);
+        return present ? Value.of(mapper.apply(value)) : Value.empty();
+    }
+
+    public PrimitiveDoubleValue isEqualTo(double other) {
+        if (present) {
+            present = value == other;
+        }
+
+        return this;
+    }
+
+    public PrimitiveDoubleValue lessThan(double upperLimit) {
+        if (present) {
+            present = value < upperLimit;
+        }
+
+        return this;
+    }
+
+    public PrimitiveDoubleValue lessThanOrEquals(double upperLimit) {
+        if (present) {
+            present = value <= upperLimit;
+        }
+
+        return this;
+    }
+
+    public PrimitiveDoubleValue greaterThan(double lowerLimit) {
+        if (present) {
+            present = value > lowerLimit;
+        }
+
+        return this;
+    }
+
+    public PrimitiveDoubleValue greaterThanOrEquals(double lowerLimit) {
+        if (present) {
+            present = value >= lowerLimit;
+        }
+
+        return this;
+    }
+
+    public PrimitiveDoubleValue betweenInclusive(double lowerLimit, double upperLimit) {
+        if (present) {
+            present = value >= lowerLimit && value <= upperLimit;
+        }
+
+        return this;
+    }
+
+    public PrimitiveDoubleValue betweenExclusive(double lowerLimit, double upperLimit) {
+        if (present) {
+            present = value > lowerLimit && value < upperLimit;
+        }
+
+        return this;
+    }
+
+    /**
+     * Checks that the value falls within a precomputed range.
+     * @param range The range to check against
+     * @return The same instance.
+     */
+    public PrimitiveDoubleValue within(DoubleRange range) {
+        if (present) {
+            present = range.test(value);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the underlying value or raises an exception
+     * if none is found.
+     * @param exceptionClass The exception to be thrown
+     *                       if the value is absent.
+     * @param message A message to be supplied to the
+     *                exception.
+     * @param <E> An exception to throw in case of failure.
+     * @return The encapsulated value, if present.
+     * @throws E If the value is missing.
+     */
+    public <E extends Exception> double getValueOrThrow(Class<E> exceptionClass, String message) throws E {
+        if (!present) {
+            AbstractValue.raise(exceptionClass, message);
+        }
+        return value;
+    }
+
+    /**
+     * Gets the underlying value or a fallback.
+     * @param other The value to return if this one is
+     *              empty.
+     * @return The encapsulated value if present, the
+     * fallback otherwise.
+     */
+    public double getOrElse(double other) {
+        return present ? value : other;
+    }
+
+    public OptionalDouble toOptional() {
+        return present ? OptionalDouble.of(value) : OptionalDouble.empty();
+    }
+
+    /**
+     * Boxes the value into an DoubleValue.
+     * @return A new DoubleValue holding the same value,
+     * or an empty one if this value is empty.
+     */
+    public DoubleValue boxed() {
+        return present ? DoubleValue.of(value) : DoubleValue.empty();
+    }
+
+    @Override
+    public String toString() {
+        return "PrimitiveDoubleValue[" + (present ? Double.toString(value) : "null") + "]";
+    }
+}
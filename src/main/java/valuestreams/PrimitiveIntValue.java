@@ -0,0 +1,225 @@
+package valuestreams;
+
+import valuestreams.rules.IntRange;
+
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * An int wrapper which never boxes its value. It offers
+ * the same checks as NumericalValue, but validation and
+ * mapping work directly on the primitive and are performed
+ * in-place.
+ */
+public class PrimitiveIntValue {
+    private static final PrimitiveIntValue EMPTY = new PrimitiveIntValue(0, false);
+
+    private int value;
+    private boolean present;
+
+    private PrimitiveIntValue(int value, boolean present) {
+        this.value = value;
+        this.present = present;
+    }
+
+    public static PrimitiveIntValue of(int value) {
+        return new PrimitiveIntValue(value, true);
+    }
+
+    /**
+     * @return The shared empty instance. Sharing it is safe
+     * since an empty value can never become present.
+     */
+    public static PrimitiveIntValue empty() {
+        return EMPTY;
+    }
+
+    public static PrimitiveIntValue fromString(CharSequence str) {
+        return str == null ? empty() : fromString(str, 0, str.length());
+    }
+
+    /**
+     * Parses an int from a range of characters without
+     * creating a sub-string or throwing an exception.
+     * @param str The characters to parse
+     * @param start The index of the first character
+     * @param end The index after the last character
+     * @return A value containing the parsed int, or an
+     * empty value if the range isn't a valid int.
+     */
+    public static PrimitiveIntValue fromString(CharSequence str, int start, int end) {
+        long parsed = NumberParser.parseInt(str, start, end);
+        return parsed == NumberParser.INVALID_INT ? empty() : of((int) parsed);
+    }
+
+    /**
+     * Unboxes the content of an IntegerValue.
+     * @param boxed The value to convert.
+     * @return A new instance holding the same value, or
+     * an empty one if the boxed value is empty.
+     */
+    public static PrimitiveIntValue from(IntegerValue boxed) {
+        return boxed.isEmpty() ? empty() : of(boxed.value);
+    }
+
+    public boolean isPresent() {
+        return present;
+    }
+
+    public boolean isEmpty() {
+        return !present;
+    }
+
+    /**
+     * Applies a predicate on the value, and empties
+     * it if the predicate returned false.
+     * @param validator The predicate to apply.
+     * @return The same instance.
+     */
+    public PrimitiveIntValue validate(IntPredicate validator) {
+        if (present) {
+            present = validator.test(value);
+        }
+
+        return this;
+    }
+
+    /**
+     * Applies a mapper on the value in-place.
+     * @param mapper The mapper to apply.
+     * @return The same instance.
+     */
+    public PrimitiveIntValue map(IntUnaryOperator mapper) {
+        Objects.requireNonNull(mapper);
+
+        if (present) {
+            value = mapper.applyAsInt(value);
+        }
+
+        return this;
+    }
+
+    public <R> Value<R> mapToObj(IntFunction<R> mapper) {
+        Objects.requireNonNull(mapper);
+        return present ? Value.of(mapper.apply(value)) : Value.empty();
+    }
+
+    public PrimitiveIntValue isEqualTo(int other) {
+        if (present) {
+            present = value == other;
+        }
+
+        return this;
+    }
+
+    public PrimitiveIntValue lessThan(int upperLimit) {
+        if (present) {
+            present = value < upperLimit;
+        }
+
+        return this;
+    }
+
+    public PrimitiveIntValue lessThanOrEquals(int upperLimit) {
+        if (present) {
+            present = value <= upperLimit;
+        }
+
+        return this;
+    }
+
+    public PrimitiveIntValue greaterThan(int lowerLimit) {
+        if (present) {
+            present = value > lowerLimit;
+        }
+
+        return this;
+    }
+
+    public PrimitiveIntValue greaterThanOrEquals(int lowerLimit) {
+        if (present) {
+            present = value >= lowerLimit;
+        }
+
+        return this;
+    }
+
+    public PrimitiveIntValue betweenInclusive(int lowerLimit, int upperLimit) {
+        if (present) {
+            present = value >= lowerLimit && value <= upperLimit;
+        }
+
+        return this;
+    }
+
+    public PrimitiveIntValue betweenExclusive(int lowerLimit, int upperLimit) {
+        if (present) {
+            present = value > lowerLimit && value < upperLimit;
+        }
+
+        return this;
+    }
+
+    /**
+     * Checks that the value falls within a precomputed range.
+     * @param range The range to check against
+     * @return The same instance.
+     */
+    public PrimitiveIntValue within(IntRange range) {
+        if (present) {
+            present = range.test(value);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the underlying value or raises an exception
+     * if none is found.
+     * @param exceptionClass The exception to be thrown
+     *                       if the value is absent.
+     * @param message A message to be supplied to the
+     *                exception.
+     * @param <E> An exception to throw in case of failure.
+     * @return The encapsulated value, if present.
+     * @throws E If the value is missing.
+     */
+    public <E extends Exception> int getValueOrThrow(Class<E> exceptionClass, String message) throws E {
+        if (!present) {
+            AbstractValue.raise(exceptionClass, message);
+        }
+        return value;
+    }
+
+    /**
+     * Gets the underlying value or a fallback.
+     * @param other The value to return if this one is
+     *              empty.
+     * @return The encapsulated value if present, the
+     * fallback otherwise.
+     */
+    public int getOrElse(int other) {
+        return present ? value : other;
+    }
+
+    public OptionalInt toOptional() {
+        return present ? OptionalInt.of(value) : OptionalInt.empty();
+    }
+
+    /**
+     * Boxes the value into an IntegerValue.
+     * @return A new IntegerValue holding the same value,
+     * or an empty one if this value is empty.
+     */
+    public IntegerValue boxed() {
+        return present ? IntegerValue.of(value) : IntegerValue.empty();
+    }
+
+    @Override
+    public String toString() {
+        return "PrimitiveIntValue[" + (present ? Integer.toString(value) : "null") + "]";
+    }
+}
@@ -0,0 +1,224 @@
+package valuestreams;
+
+import valuestreams.rules.LongRange;
+
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * A long wrapper which never boxes its value. It offers
+ * the same checks as NumericalValue, but validation and
+ * mapping work directly on the primitive and are performed
+ * in-place.
+ */
+public class PrimitiveLongValue {
+    private static final PrimitiveLongValue EMPTY = new PrimitiveLongValue(0, false);
+
+    private long value;
+    private boolean present;
+
+    private PrimitiveLongValue(long value, boolean present) {
+        this.value = value;
+        this.present = present;
+    }
+
+    public static PrimitiveLongValue of(long value) {
+        return new PrimitiveLongValue(value, true);
+    }
+
+    /**
+     * @return The shared empty instance. Sharing it is safe
+     * since an empty value can never become present.
+     */
+    public static PrimitiveLongValue empty() {
+        return EMPTY;
+    }
+
+    public static PrimitiveLongValue fromString(CharSequence str) {
+        return str == null ? empty() : fromString(str, 0, str.length());
+    }
+
+    /**
+     * Parses a long from a range of characters without
+     * creating a sub-string or throwing an exception.
+     * @param str The characters to parse
+     * @param start The index of the first character
+     * @param end The index after the last character
+     * @return A value containing the parsed long, or an
+     * empty value if the range isn't a valid long.
+     */
+    public static PrimitiveLongValue fromString(CharSequence str, int start, int end) {
+        return NumberParser.parseLong(str, start, end);
+    }
+
+    /**
+     * Unboxes the content of an LongValue.
+     * @param boxed The value to convert.
+     * @return A new instance holding the same value, or
+     * an empty one if the boxed value is empty.
+     */
+    public static PrimitiveLongValue from(LongValue boxed) {
+        return boxed.isEmpty() ? empty() : of(boxed.value);
+    }
+
+    public boolean isPresent() {
+        return present;
+    }
+
+    public boolean isEmpty() {
+        return !present;
+    }
+
+    /**
+     * Applies a predicate on the value, and empties
+     * it if the predicate returned false.
+     * @param validator The predicate to apply.
+     * @return The same instance.
+     */
+    public PrimitiveLongValue validate(LongPredicate validator) {
+        if (present) {
+            present = validator.test(value);
+        }
+
+        return this;
+    }
+
+    /**
+     * Applies a mapper on the value in-place.
+     * @param mapper The mapper to apply.
+     * @return The same instance.
+     */
+    public PrimitiveLongValue map(LongUnaryOperator mapper) {
+        Objects.requireNonNull(mapper);
+
+        if (present) {
+            value = mapper.applyAsLong(value);
+        }
+
+        return this;
+    }
+
+    public <R> Value<R> mapToObj(LongFunction<R> mapper) {
+        Objects.requireNonNull(mapper);
+        return present ? Value.of(mapper.apply(value)) : Value.empty();
+    }
+
+    public PrimitiveLongValue isEqualTo(long other) {
+        if (present) {
+            present = value == other;
+        }
+
+        return this;
+    }
+
+    public PrimitiveLongValue lessThan(long upperLimit) {
+        if (present) {
+            present = value < upperLimit;
+        }
+
+        return this;
+    }
+
+    public PrimitiveLongValue lessThanOrEquals(long upperLimit) {
+        if (present) {
+            present = value <= upperLimit;
+        }
+
+        return this;
+    }
+
+    public PrimitiveLongValue greaterThan(long lowerLimit) {
+        if (present) {
+            present = value > lowerLimit;
+        }
+
+        return this;
+    }
+
+    public PrimitiveLongValue greaterThanOrEquals(long lowerLimit) {
+        if (present) {
+            present = value >= lowerLimit;
+        }
+
+        return this;
+    }
+
+    public PrimitiveLongValue betweenInclusive(long lowerLimit, long upperLimit) {
+        if (present) {
+            present = value >= lowerLimit && value <= upperLimit;
+        }
+
+        return this;
+    }
+
+    public PrimitiveLongValue betweenExclusive(long lowerLimit, long upperLimit) {
+        if (present) {
+            present = value > lowerLimit && value < upperLimit;
+        }
+
+        return this;
+    }
+
+    /**
+     * Checks that the value falls within a precomputed range.
+     * @param range The range to check against
+     * @return The same instance.
+     */
+    public PrimitiveLongValue within(LongRange range) {
+        if (present) {
+            present = range.test(value);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets the underlying value or raises an exception
+     * if none is found.
+     * @param exceptionClass The exception to be thrown
+     *                       if the value is absent.
+     * @param message A message to be supplied to the
+     *                exception.
+     * @param <E> An exception to throw in case of failure.
+     * @return The encapsulated value, if present.
+     * @throws E If the value is missing.
+     */
+    public <E extends Exception> long getValueOrThrow(Class<E> exceptionClass, String message) throws E {
+        if (!present) {
+            AbstractValue.raise(exceptionClass, message);
+        }
+        return value;
+    }
+
+    /**
+     * Gets the underlying value or a fallback.
+     * @param other The value to return if this one is
+     *              empty.
+     * @return The encapsulated value if present, the
+     * fallback otherwise.
+     */
+    public long getOrElse(long other) {
+        return present ? value : other;
+    }
+
+    public OptionalLong toOptional() {
+        return present ? OptionalLong.of(value) : OptionalLong.empty();
+    }
+
+    /**
+     * Boxes the value into an LongValue.
+     * @return A new LongValue holding the same value,
+     * or an empty one if this value is empty.
+     */
+    public LongValue boxed() {
+        return present ? LongValue.of(value) : LongValue.empty();
+    }
+
+    @Override
+    public String toString() {
+        return "PrimitiveLongValue[" + (present ? Long.toString(value) : "null") + "]";
+    }
+}
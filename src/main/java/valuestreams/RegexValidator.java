@@ -0,0 +1,46 @@
+package valuestreams;
+
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * A reusable predicate which checks that a whole string matches
+ * a pre-compiled regular expression. Instances are immutable and
+ * can be shared between threads, and can be passed to any
+ * validate() or filter() which accepts a string predicate.
+ * {@code StringValue.of(input).validate(RegexValidator.of("\\d+"))}
+ */
+public final class RegexValidator implements Predicate<String> {
+    private final Pattern pattern;
+
+    private RegexValidator(Pattern pattern) {
+        this.pattern = Objects.requireNonNull(pattern);
+    }
+
+    public static RegexValidator of(String regex) {
+        return new RegexValidator(Pattern.compile(regex));
+    }
+
+    public static RegexValidator of(Pattern pattern) {
+        return new RegexValidator(pattern);
+    }
+
+    public Pattern pattern() {
+        return pattern;
+    }
+
+    @Override
+    public boolean test(String value) {
+        return pattern.matcher(value).matches();
+    }
+
+    /**
+     * Same as test() but accepts any sequence of characters.
+     * @param value The characters to match
+     * @return True if all of the characters match the pattern
+     */
+    public boolean matches(CharSequence value) {
+        return pattern.matcher(value).matches();
+    }
+}
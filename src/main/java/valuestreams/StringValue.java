@@ -1,10 +1,15 @@
 package valuestreams;
 
+import valuestreams.rules.StringRule;
+
 import java.util.Objects;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
 public class StringValue extends AbstractValue<String> {
+    private static final StringValue EMPTY = new StringValue();
+
     private StringValue(String value) {
         super(value);
     }
@@ -16,8 +21,12 @@ public class StringValue extends AbstractValue<String> {
         return new StringValue(value);
     }
 
+    /**
+     * @return The shared empty instance. Sharing it is safe
+     * since an empty value can never become present.
+     */
     public static StringValue empty() {
-        return new StringValue();
+        return EMPTY;
     }
 
     public StringValue validate(Predicate<String> validator) {
@@ -28,14 +37,45 @@ public class StringValue extends AbstractValue<String> {
         return this;
     }
 
+    /**
+     * Checks that the whole value matches a regular expression.
+     * The compiled expression is taken from PatternCache.shared()
+     * so it's compiled only once for repeated calls.
+     * @param regex The regular expression
+     * @return The same instance.
+     */
     public StringValue matches(String regex) {
-        return this.validate(s -> s.matches(regex));
+        return this.validate(s -> PatternCache.shared().get(regex).matcher(s).matches());
+    }
+
+    public StringValue matches(Pattern pattern) {
+        return this.validate(s -> pattern.matcher(s).matches());
     }
 
     public StringValue contains(CharSequence sequence) {
         return this.validate(s -> s.contains(sequence));
     }
 
+    /**
+     * Checks that the value contains any of the keywords of a
+     * matcher, in a single pass over the value.
+     * @param matcher The prebuilt keyword matcher
+     * @return The same instance.
+     */
+    public StringValue containsAny(KeywordMatcher matcher) {
+        return this.validate(matcher::containsAny);
+    }
+
+    /**
+     * Checks that the whole value is one of the keywords of a
+     * matcher.
+     * @param matcher The prebuilt keyword matcher
+     * @return The same instance.
+     */
+    public StringValue matchesAny(KeywordMatcher matcher) {
+        return this.validate(matcher::matchesAny);
+    }
+
     public StringValue lengthAtLeast(int min) {
         return this.validate(s -> s.length() >= min);
     }
@@ -48,6 +88,16 @@ public class StringValue extends AbstractValue<String> {
         return this.validate(s -> s.length() >= min && s.length() <= max);
     }
 
+    /**
+     * Checks the value against a rule whose checks were merged
+     * when it was built.
+     * @param rule The rule to check
+     * @return The same instance.
+     */
+    public StringValue satisfies(StringRule rule) {
+        return this.validate(rule::test);
+    }
+
     public StringValue map(Function<String, String> mapper) {
         Objects.requireNonNull(mapper);
 
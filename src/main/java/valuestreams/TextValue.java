@@ -0,0 +1,198 @@
+package valuestreams;
+
+import valuestreams.rules.StringRule;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * A counterpart of StringValue for text which isn't a String: any
+ * CharSequence, or UTF-8 bytes in an array or a buffer held as a
+ * ByteSlice. It offers the same checks as StringValue without
+ * creating a String; on byte slices, lengths, equality, prefixes,
+ * and contained text are checked on the bytes, and matching a
+ * regular expression decodes nothing if the bytes are ASCII.
+ * {@code
+ * TextValue.of(buffer, start, length)
+ *         .lengthBetween(3, 64)
+ *         .startsWith("user:")
+ *         .isPresent();
+ * }
+ */
+public class TextValue extends AbstractValue<CharSequence> {
+    private static final TextValue EMPTY = new TextValue();
+
+    private TextValue(CharSequence value) {
+        super(value);
+    }
+
+    private TextValue() {
+    }
+
+    public static TextValue of(CharSequence value) {
+        return new TextValue(value);
+    }
+
+    /**
+     * @param bytes UTF-8 or ASCII bytes
+     * @return A new value holding a slice of the whole array
+     */
+    public static TextValue of(byte[] bytes) {
+        return new TextValue(ByteSlice.of(bytes));
+    }
+
+    public static TextValue of(byte[] bytes, int offset, int length) {
+        return new TextValue(ByteSlice.of(bytes, offset, length));
+    }
+
+    /**
+     * @param buffer A buffer of UTF-8 or ASCII bytes, whose
+     *               position isn't used or changed
+     * @param offset The index of the first byte of the text
+     * @param length The number of bytes in the text
+     * @return A new value holding a slice of the buffer
+     */
+    public static TextValue of(ByteBuffer buffer, int offset, int length) {
+        return new TextValue(ByteSlice.of(buffer, offset, length));
+    }
+
+    /**
+     * @return The shared empty instance. Sharing it is safe
+     * since an empty value can never become present.
+     */
+    public static TextValue empty() {
+        return EMPTY;
+    }
+
+    public TextValue validate(Predicate<CharSequence> validator) {
+        if (!isEmpty()) {
+            this.value = validator.test(this.value) ? this.value : null;
+        }
+
+        return this;
+    }
+
+    /**
+     * Checks that the whole value matches a regular expression,
+     * which is taken from PatternCache.shared().
+     * @param regex The regular expression
+     * @return The same instance.
+     */
+    public TextValue matches(String regex) {
+        return this.validate(s -> PatternCache.shared().get(regex).matcher(s).matches());
+    }
+
+    public TextValue matches(Pattern pattern) {
+        return this.validate(s -> pattern.matcher(s).matches());
+    }
+
+    public TextValue contains(CharSequence sequence) {
+        Objects.requireNonNull(sequence);
+        return this.validate(s -> s instanceof ByteSlice
+                ? ((ByteSlice) s).contains(sequence)
+                : CharSequences.indexOf(s, sequence) >= 0);
+    }
+
+    /**
+     * Checks that the value contains any of the keywords of a
+     * matcher, in a single pass over the value.
+     * @param matcher The prebuilt keyword matcher
+     * @return The same instance.
+     */
+    public TextValue containsAny(KeywordMatcher matcher) {
+        return this.validate(matcher::containsAny);
+    }
+
+    /**
+     * Checks that the whole value is one of the keywords of a
+     * matcher.
+     * @param matcher The prebuilt keyword matcher
+     * @return The same instance.
+     */
+    public TextValue matchesAny(KeywordMatcher matcher) {
+        return this.validate(matcher::matchesAny);
+    }
+
+    public TextValue startsWith(CharSequence prefix) {
+        Objects.requireNonNull(prefix);
+        return this.validate(s -> s instanceof ByteSlice
+                ? ((ByteSlice) s).startsWith(prefix)
+                : CharSequences.startsWith(s, prefix));
+    }
+
+    /**
+     * Checks the length of the value in chars. The length of ASCII
+     * bytes is their number, and other UTF-8 bytes are counted
+     * once without being decoded.
+     * @param min The minimum length
+     * @return The same instance.
+     */
+    public TextValue lengthAtLeast(int min) {
+        return this.validate(s -> s.length() >= min);
+    }
+
+    public TextValue lengthAtMost(int max) {
+        return this.validate(s -> s.length() <= max);
+    }
+
+    public TextValue lengthBetween(int min, int max) {
+        return this.validate(s -> {
+            int length = s.length();
+            return length >= min && length <= max;
+        });
+    }
+
+    /**
+     * Checks that the value holds the same chars as another text,
+     * whatever the types of the two are.
+     * @param other The text to compare against
+     * @return The same instance.
+     */
+    public TextValue isEqualTo(CharSequence other) {
+        Objects.requireNonNull(other);
+        return this.validate(s -> {
+            if (s instanceof ByteSlice) {
+                return ((ByteSlice) s).contentEquals(other);
+            }
+            if (other instanceof ByteSlice) {
+                return ((ByteSlice) other).contentEquals(s);
+            }
+            return s.length() == other.length() && CharSequences.regionMatches(s, 0, other);
+        });
+    }
+
+    /**
+     * Checks the value against a rule whose checks were merged
+     * when it was built.
+     * @param rule The rule to check
+     * @return The same instance.
+     */
+    public TextValue satisfies(StringRule rule) {
+        return this.validate(rule);
+    }
+
+    public TextValue map(Function<CharSequence, CharSequence> mapper) {
+        Objects.requireNonNull(mapper);
+
+        if (!isEmpty()) {
+            this.value = Objects.requireNonNull(mapper.apply(this.value));
+        }
+
+        return this;
+    }
+
+    /**
+     * @return A StringValue of the value, which decodes byte
+     * slices
+     */
+    public StringValue asStringValue() {
+        return isEmpty() ? StringValue.empty() : StringValue.of(this.value.toString());
+    }
+
+    public Value<CharSequence> asGenericValue() {
+        return isEmpty() ? Value.empty() : Value.of(this.value);
+    }
+}
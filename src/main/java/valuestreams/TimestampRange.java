@@ -0,0 +1,77 @@
+package valuestreams;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.ZoneId;
+import java.util.function.LongPredicate;
+
+/**
+ * A half-open range of epoch milliseconds, usually covering a
+ * calendar period in a given zone. The bounds are computed once
+ * when the range is created, so checking a timestamp against it
+ * is just two comparisons. Ranges are immutable and can be
+ * shared between threads.
+ * {@code TimestampRange may2011 = TimestampRange.month(2011, Month.MAY, zone);}
+ */
+public final class TimestampRange implements LongPredicate {
+    private final long startInclusive;
+    private final long endExclusive;
+
+    private TimestampRange(long startInclusive, long endExclusive) {
+        this.startInclusive = startInclusive;
+        this.endExclusive = endExclusive;
+    }
+
+    /**
+     * @param startInclusive The first epoch millisecond in the range
+     * @param endExclusive The epoch millisecond after the range
+     * @return A new range
+     */
+    public static TimestampRange between(long startInclusive, long endExclusive) {
+        return new TimestampRange(startInclusive, endExclusive);
+    }
+
+    public static TimestampRange year(int year, ZoneId zone) {
+        LocalDate start = LocalDate.of(year, 1, 1);
+        return of(start, start.plusYears(1), zone);
+    }
+
+    public static TimestampRange month(int year, Month month, ZoneId zone) {
+        LocalDate start = LocalDate.of(year, month, 1);
+        return of(start, start.plusMonths(1), zone);
+    }
+
+    public static TimestampRange day(LocalDate day, ZoneId zone) {
+        return of(day, day.plusDays(1), zone);
+    }
+
+    private static TimestampRange of(LocalDate start, LocalDate end, ZoneId zone) {
+        return new TimestampRange(startOfDay(start, zone), startOfDay(end, zone));
+    }
+
+    private static long startOfDay(LocalDate day, ZoneId zone) {
+        return day.atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    public long getStartInclusive() {
+        return startInclusive;
+    }
+
+    public long getEndExclusive() {
+        return endExclusive;
+    }
+
+    public boolean contains(long epochMillis) {
+        return epochMillis >= startInclusive && epochMillis < endExclusive;
+    }
+
+    @Override
+    public boolean test(long epochMillis) {
+        return contains(epochMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "TimestampRange[" + startInclusive + ", " + endExclusive + ")";
+    }
+}
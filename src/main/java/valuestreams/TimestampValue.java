@@ -0,0 +1,254 @@
+package valuestreams;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * A point in time held as primitive epoch milliseconds together
+ * with the zone in which calendar checks are made. Unlike
+ * DateValue, checking the year, month, or day doesn't create any
+ * date objects; the calendar fields are computed arithmetically
+ * from the epoch value, and precomputed TimestampRange instances
+ * reduce a calendar check to two comparisons. Validation and
+ * mapping are performed in-place.
+ */
+public class TimestampValue {
+    private static final TimestampValue EMPTY = new TimestampValue(0, false, ZoneOffset.UTC);
+
+    private long epochMillis;
+    private boolean present;
+    private final ZoneId zone;
+    private final ZoneOffsets offsets;
+
+    private TimestampValue(long epochMillis, boolean present, ZoneId zone) {
+        this.epochMillis = epochMillis;
+        this.present = present;
+        this.zone = Objects.requireNonNull(zone);
+        this.offsets = ZoneOffsets.of(zone);
+    }
+
+    public static TimestampValue of(long epochMillis, ZoneId zone) {
+        return new TimestampValue(epochMillis, true, zone);
+    }
+
+    public static TimestampValue ofUtc(long epochMillis) {
+        return new TimestampValue(epochMillis, true, ZoneOffset.UTC);
+    }
+
+    /**
+     * Creates a value for the start of a day. Like
+     * LocalDate.atStartOfDay(ZoneId), if midnight falls in a
+     * gap of the zone the day starts at the end of the gap.
+     * @param day The day of the month, starting at 1
+     * @param month The month
+     * @param year The year
+     * @param zone The zone of the day
+     * @return A new value
+     */
+    public static TimestampValue of(int day, Month month, int year, ZoneId zone) {
+        LocalDateTime midnight = LocalDateTime.of(year, month, day, 0, 0);
+        ZoneRules rules = ZoneOffsets.of(zone).getRules();
+        List<ZoneOffset> validOffsets = rules.getValidOffsets(midnight);
+
+        long epochSeconds;
+        if (validOffsets.isEmpty()) {
+            // midnight falls in a gap, so the day starts when the gap ends
+            epochSeconds = rules.getTransition(midnight).toEpochSecond();
+        } else {
+            epochSeconds = midnight.toEpochSecond(validOffsets.get(0));
+        }
+
+        return new TimestampValue(epochSeconds * 1000L, true, zone);
+    }
+
+    /**
+     * @return The shared empty instance, whose zone is UTC.
+     * Sharing it is safe since an empty value can never become
+     * present.
+     */
+    public static TimestampValue empty() {
+        return EMPTY;
+    }
+
+    public static TimestampValue empty(ZoneId zone) {
+        return new TimestampValue(0, false, zone);
+    }
+
+    /**
+     * Converts a DateValue, keeping its instant.
+     * @param date The value to convert
+     * @param zone The zone used for calendar checks
+     * @return A new value, or an empty one if the date is empty
+     */
+    public static TimestampValue from(DateValue date, ZoneId zone) {
+        return date.isEmpty() ? empty(zone) : of(date.value.getTime(), zone);
+    }
+
+    public boolean isPresent() {
+        return present;
+    }
+
+    public boolean isEmpty() {
+        return !present;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Applies a predicate on the epoch milliseconds, and
+     * empties the value if the predicate returned false.
+     * @param validator The predicate to apply.
+     * @return The same instance.
+     */
+    public TimestampValue validate(LongPredicate validator) {
+        if (present) {
+            present = validator.test(epochMillis);
+        }
+
+        return this;
+    }
+
+    /**
+     * Applies a mapper on the epoch milliseconds in-place.
+     * @param mapper The mapper to apply.
+     * @return The same instance.
+     */
+    public TimestampValue map(LongUnaryOperator mapper) {
+        Objects.requireNonNull(mapper);
+
+        if (present) {
+            epochMillis = mapper.applyAsLong(epochMillis);
+        }
+
+        return this;
+    }
+
+    public TimestampValue isBefore(long otherEpochMillis) {
+        if (present) {
+            present = epochMillis < otherEpochMillis;
+        }
+
+        return this;
+    }
+
+    public TimestampValue isAfter(long otherEpochMillis) {
+        if (present) {
+            present = epochMillis > otherEpochMillis;
+        }
+
+        return this;
+    }
+
+    public TimestampValue isBefore(Date target) {
+        return isBefore(target.getTime());
+    }
+
+    public TimestampValue isAfter(Date target) {
+        return isAfter(target.getTime());
+    }
+
+    /**
+     * Checks that the value falls within a precomputed range.
+     * @param range The range to check against
+     * @return The same instance.
+     */
+    public TimestampValue within(TimestampRange range) {
+        if (present) {
+            present = range.contains(epochMillis);
+        }
+
+        return this;
+    }
+
+    public TimestampValue inYear(int year) {
+        if (present) {
+            present = EpochCalendar.year(localEpochDay()) == year;
+        }
+
+        return this;
+    }
+
+    public TimestampValue inMonth(Month month) {
+        if (present) {
+            present = EpochCalendar.month(localEpochDay()) == month.getValue();
+        }
+
+        return this;
+    }
+
+    public TimestampValue onDay(int monthDay) {
+        if (present) {
+            present = EpochCalendar.dayOfMonth(localEpochDay()) == monthDay;
+        }
+
+        return this;
+    }
+
+    public TimestampValue past() {
+        return isBefore(System.currentTimeMillis());
+    }
+
+    public TimestampValue future() {
+        return isAfter(System.currentTimeMillis());
+    }
+
+    private long localEpochDay() {
+        return offsets.localEpochDay(epochMillis);
+    }
+
+    /**
+     * Gets the epoch milliseconds or raises an exception if
+     * the value is empty.
+     * @param exceptionClass The exception to be thrown
+     *                       if the value is absent.
+     * @param message A message to be supplied to the
+     *                exception.
+     * @param <E> An exception to throw in case of failure.
+     * @return The epoch milliseconds, if present.
+     * @throws E If the value is missing.
+     */
+    public <E extends Exception> long getValueOrThrow(Class<E> exceptionClass, String message) throws E {
+        if (!present) {
+            AbstractValue.raise(exceptionClass, message);
+        }
+        return epochMillis;
+    }
+
+    public long getOrElse(long other) {
+        return present ? epochMillis : other;
+    }
+
+    public OptionalLong toOptional() {
+        return present ? OptionalLong.of(epochMillis) : OptionalLong.empty();
+    }
+
+    public Instant toInstant() {
+        return present ? Instant.ofEpochMilli(epochMillis) : null;
+    }
+
+    /**
+     * Converts the value to a DateValue.
+     * @return A new DateValue for the same instant, or an
+     * empty one if this value is empty.
+     */
+    public DateValue toDateValue() {
+        return present ? DateValue.of(new Date(epochMillis)) : DateValue.empty();
+    }
+
+    @Override
+    public String toString() {
+        return "TimestampValue[" + (present ? Instant.ofEpochMilli(epochMillis).atZone(zone).toString() : "null") + "]";
+    }
+}
@@ -14,6 +14,7 @@ import java.util.function.Predicate;
  * @param <T> The type of the encapsulated value.
  */
 public class Value<T> extends AbstractValue<T> {
+    private static final Value<?> EMPTY = new Value<>();
 
     protected Value(T value) {
         super(value);
@@ -25,8 +26,13 @@ public class Value<T> extends AbstractValue<T> {
         return new Value<>(value);
     }
 
+    /**
+     * @return The shared empty instance. Sharing it is safe
+     * since an empty value can never become present.
+     */
+    @SuppressWarnings("unchecked")
     public static <R> Value<R> empty() {
-        return new Value<>();
+        return (Value<R>) EMPTY;
     }
 
     /**
@@ -0,0 +1,130 @@
+package valuestreams;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the UTC offset of a zone at an epoch instant, and
+ * converts local date-times to epoch instants. The offset window
+ * around the last looked up instant is cached, so consecutive
+ * lookups between the same two transitions don't create any
+ * objects. Instances are shared per zone and are safe
+ * to use from multiple threads.
+ */
+final class ZoneOffsets {
+    private static final Map<ZoneId, ZoneOffsets> CACHE = new ConcurrentHashMap<>();
+
+    private final ZoneRules rules;
+    private final long fixedOffsetMillis;
+    private volatile Window window = new Window(0, 0, 0);
+
+    private ZoneOffsets(ZoneRules rules) {
+        this.rules = rules;
+        this.fixedOffsetMillis = rules.isFixedOffset()
+                ? rules.getOffset(Instant.EPOCH).getTotalSeconds() * 1000L
+                : 0;
+    }
+
+    static ZoneOffsets of(ZoneId zone) {
+        ZoneOffsets offsets = CACHE.get(zone);
+        return offsets != null ? offsets : CACHE.computeIfAbsent(zone, z -> new ZoneOffsets(z.getRules()));
+    }
+
+    ZoneRules getRules() {
+        return rules;
+    }
+
+    /**
+     * @return The offset from UTC in milliseconds which applies
+     * at the given instant.
+     */
+    long offsetMillis(long epochMillis) {
+        if (rules.isFixedOffset()) {
+            return fixedOffsetMillis;
+        }
+
+        Window current = window;
+        if (epochMillis >= current.start && epochMillis < current.end) {
+            return current.offsetMillis;
+        }
+
+        current = lookUp(epochMillis);
+        window = current;
+        return current.offsetMillis;
+    }
+
+    /**
+     * Converts a local date-time, given as milliseconds since the
+     * local epoch, to epoch milliseconds like
+     * LocalDateTime.atZone(ZoneId) does: in an overlap the earlier
+     * offset is used, and a time in a gap is moved forward by the
+     * length of the gap.
+     */
+    long localToEpochMillis(long localMillis) {
+        if (rules.isFixedOffset()) {
+            return localMillis - fixedOffsetMillis;
+        }
+
+        // no offset exceeds 18 hours, so a local time which is more than a day from
+        // both transitions of the window can only belong to the window
+        Window current = window;
+        if ((current.start == Long.MIN_VALUE || localMillis - EpochCalendar.MILLIS_PER_DAY >= current.start)
+                && (current.end == Long.MAX_VALUE || localMillis + EpochCalendar.MILLIS_PER_DAY < current.end)) {
+            return localMillis - current.offsetMillis;
+        }
+
+        LocalDateTime local = LocalDateTime.ofEpochSecond(Math.floorDiv(localMillis, 1000L),
+                (int) Math.floorMod(localMillis, 1000L) * 1_000_000, ZoneOffset.UTC);
+        List<ZoneOffset> validOffsets = rules.getValidOffsets(local);
+
+        long epochMillis;
+        if (validOffsets.isEmpty()) {
+            ZoneOffsetTransition gap = rules.getTransition(local);
+            epochMillis = localMillis + gap.getDuration().toMillis()
+                    - gap.getOffsetAfter().getTotalSeconds() * 1000L;
+        } else {
+            epochMillis = localMillis - validOffsets.get(0).getTotalSeconds() * 1000L;
+        }
+
+        // moves the window, so that the following local times of the same period hit it
+        offsetMillis(epochMillis);
+        return epochMillis;
+    }
+
+    long localEpochDay(long epochMillis) {
+        return Math.floorDiv(epochMillis + offsetMillis(epochMillis), EpochCalendar.MILLIS_PER_DAY);
+    }
+
+    private Window lookUp(long epochMillis) {
+        // transitions fall on whole seconds, so the window of the
+        // enclosing second is also the window of the instant
+        long second = Math.floorDiv(epochMillis, 1000L);
+        Instant instant = Instant.ofEpochSecond(second);
+        ZoneOffsetTransition previous = rules.previousTransition(Instant.ofEpochSecond(second + 1));
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+
+        return new Window(
+                previous == null ? Long.MIN_VALUE : previous.toEpochSecond() * 1000L,
+                next == null ? Long.MAX_VALUE : next.toEpochSecond() * 1000L,
+                rules.getOffset(instant).getTotalSeconds() * 1000L);
+    }
+
+    private static final class Window {
+        final long start;
+        final long end;
+        final long offsetMillis;
+
+        Window(long start, long end, long offsetMillis) {
+            this.start = start;
+            this.end = end;
+            this.offsetMillis = offsetMillis;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package valuestreams.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Byte scanning helpers which look at eight bytes at a time.
+ * Buffers passed to them must use little-endian byte order, so
+ * that the lowest byte of a word is the first one in memory.
+ */
+final class Bytes {
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long NEWLINES = ONES * '\n';
+
+    private Bytes() {}
+
+    /**
+     * @return The index of the first newline in [from, to), or -1
+     * if there is none
+     */
+    static int indexOfNewline(ByteBuffer buffer, int from, int to) {
+        int i = from;
+
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long word = buffer.getLong(i) ^ NEWLINES;
+            // sets the high bit of the first zero byte, which is where the newline is
+            long found = (word - ONES) & ~word & HIGH_BITS;
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+
+        for (; i < to; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return The index of the last newline in [from, to), or -1
+     * if there is none
+     */
+    static int lastIndexOfNewline(ByteBuffer buffer, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return True if none of the bytes in [from, to) has its
+     * high bit set
+     */
+    static boolean isAscii(ByteBuffer buffer, int from, int to) {
+        int i = from;
+        long bits = 0;
+
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            bits |= buffer.getLong(i);
+        }
+        for (; i < to; i++) {
+            bits |= buffer.get(i);
+        }
+
+        return (bits & HIGH_BITS) == 0;
+    }
+}
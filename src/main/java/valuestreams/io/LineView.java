@@ -0,0 +1,132 @@
+package valuestreams.io;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reusable view of a line of bytes in a mapped buffer. Lines
+ * made only of ASCII characters, and every line of a single-byte
+ * charset, are read straight from the buffer; other lines are
+ * decoded into a reused char buffer the first time their
+ * characters are needed. A String is only created by toString()
+ * and subSequence().
+ */
+final class LineView implements CharSequence {
+    private static final int UNKNOWN = 0;
+    private static final int SINGLE_BYTE = 1;
+    private static final int DECODED = 2;
+
+    private final boolean singleByteCharset;
+    private final CharsetDecoder decoder;
+
+    private ByteBuffer buffer;
+    private ByteBuffer window;
+    private int start;
+    private int end;
+    private int state;
+    private CharBuffer decoded;
+    private byte[] copy;
+    private String string;
+
+    LineView(Charset charset) {
+        this.singleByteCharset = charset.equals(StandardCharsets.ISO_8859_1);
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Points the view at the bytes in [start, end) of a buffer.
+     */
+    void reset(ByteBuffer buffer, int start, int end) {
+        if (this.buffer != buffer) {
+            this.buffer = buffer;
+            this.window = null;
+        }
+        this.start = start;
+        this.end = end;
+        this.state = singleByteCharset ? SINGLE_BYTE : UNKNOWN;
+        this.string = null;
+    }
+
+    private int state() {
+        if (state == UNKNOWN) {
+            if (Bytes.isAscii(buffer, start, end)) {
+                state = SINGLE_BYTE;
+            } else {
+                decode();
+                state = DECODED;
+            }
+        }
+        return state;
+    }
+
+    private void decode() {
+        int length = end - start;
+        if (decoded == null || decoded.capacity() < length) {
+            decoded = CharBuffer.allocate(Math.max(length, 64));
+        }
+        if (window == null) {
+            window = buffer.duplicate();
+        }
+
+        // cast for Java 8, where Buffer's methods aren't overridden covariantly
+        ((Buffer) window).limit(end).position(start);
+        ((Buffer) decoded).clear();
+        decoder.reset();
+        decoder.decode(window, decoded, true);
+        decoder.flush(decoded);
+        ((Buffer) decoded).flip();
+    }
+
+    @Override
+    public int length() {
+        return state() == SINGLE_BYTE ? end - start : decoded.remaining();
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (state() == SINGLE_BYTE) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", length: " + (end - start));
+            }
+            return (char) (buffer.get(start + index) & 0xFF);
+        }
+        return decoded.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        if (from < 0 || to > length() || from > to) {
+            throw new IndexOutOfBoundsException("Range: [" + from + ", " + to + "), length: " + length());
+        }
+        if (state() == SINGLE_BYTE) {
+            return latin1String(start + from, start + to);
+        }
+        return new String(decoded.array(), decoded.arrayOffset() + from, to - from);
+    }
+
+    @Override
+    public String toString() {
+        if (string == null) {
+            string = state() == SINGLE_BYTE ? latin1String(start, end) : decoded.toString();
+        }
+        return string;
+    }
+
+    private String latin1String(int from, int to) {
+        int length = to - from;
+        if (copy == null || copy.length < length) {
+            copy = new byte[Math.max(length, 64)];
+        }
+        for (int i = 0; i < length; i++) {
+            copy[i] = buffer.get(from + i);
+        }
+        return new String(copy, 0, length, StandardCharsets.ISO_8859_1);
+    }
+}
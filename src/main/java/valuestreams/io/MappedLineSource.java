@@ -0,0 +1,264 @@
+package valuestreams.io;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The lines of a memory-mapped file. Lines are split directly
+ * from the mapped bytes and handed out as a CharSequence view
+ * which is reused for the next line, so no String is created
+ * unless a stage asks for one with toString(). Files larger than
+ * 2 GB are mapped in several segments, each of which ends at a
+ * line break. Lines end at '\n' or "\r\n", and neither is part
+ * of the line.
+ * Since the view changes with every line, a pipeline fed from a
+ * source must not keep the lines it's given; one which returns
+ * the line itself should convert it first, for example with
+ * {@code pipe(CharSequence::toString)}.
+ * {@code
+ * MappedLineSource source = MappedLineSource.open(path);
+ * long count = pipeline.applyStreamAndFilter(source.lines().parallel()).count();
+ * }
+ * The streams of a source split at line breaks when they run in
+ * parallel, and every split gets its own view. Only charsets in
+ * which a line break is always a single byte of its own are
+ * supported: UTF-8, US-ASCII, and ISO-8859-1. The file is unmapped
+ * when the source is no longer reachable.
+ */
+public final class MappedLineSource {
+    private static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+
+    private final ByteBuffer[] segments;
+    private final long size;
+    private final Charset charset;
+
+    private MappedLineSource(ByteBuffer[] segments, long size, Charset charset) {
+        this.segments = segments;
+        this.size = size;
+        this.charset = charset;
+    }
+
+    /**
+     * Maps a UTF-8 file.
+     * @param path The file to map
+     * @return A new source
+     * @throws IOException If the file couldn't be mapped
+     */
+    public static MappedLineSource open(Path path) throws IOException {
+        return open(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param path The file to map
+     * @param charset The charset of the file
+     * @return A new source
+     * @throws IOException If the file couldn't be mapped
+     */
+    public static MappedLineSource open(Path path, Charset charset) throws IOException {
+        return open(path, charset, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param path The file to map
+     * @param charset The charset of the file
+     * @param maxSegmentSize The maximum number of bytes mapped in
+     *                       a single segment; 1 GB by default
+     * @return A new source
+     * @throws IOException If the file couldn't be mapped, or if
+     * it has a line which is longer than a segment
+     */
+    public static MappedLineSource open(Path path, Charset charset, int maxSegmentSize) throws IOException {
+        Objects.requireNonNull(path);
+        if (!charset.equals(StandardCharsets.UTF_8) && !charset.equals(StandardCharsets.US_ASCII)
+                && !charset.equals(StandardCharsets.ISO_8859_1)) {
+            throw new IllegalArgumentException("Unsupported charset " + charset);
+        }
+        if (maxSegmentSize < 1) {
+            throw new IllegalArgumentException("Segment size must be positive");
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<ByteBuffer> segments = new ArrayList<>();
+            long position = 0;
+
+            while (position < size) {
+                int length = (int) Math.min(maxSegmentSize, size - position);
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+                if (position + length < size) {
+                    int lastBreak = Bytes.lastIndexOfNewline(mapped, 0, length);
+                    if (lastBreak < 0) {
+                        throw new IOException("The line at offset " + position + " of " + path
+                                + " is longer than the segment size");
+                    }
+                    length = lastBreak + 1;
+                    ((Buffer) mapped).limit(length);
+                }
+
+                segments.add(((ByteBuffer) mapped).slice().order(ByteOrder.LITTLE_ENDIAN));
+                position += length;
+            }
+
+            return new MappedLineSource(segments.toArray(new ByteBuffer[0]), size, charset);
+        }
+    }
+
+    /**
+     * @return The size of the file in bytes
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return The number of segments the file was mapped in
+     */
+    public int segmentCount() {
+        return segments.length;
+    }
+
+    /**
+     * @return A sequential stream of the lines, which can be
+     * turned into a parallel one
+     */
+    public Stream<CharSequence> lines() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Passes every line to an action, in order.
+     * @param action The action to perform on each line
+     */
+    public void forEach(Consumer<? super CharSequence> action) {
+        spliterator().forEachRemaining(action);
+    }
+
+    /**
+     * @return A spliterator over the lines, whose size estimate is
+     * the number of bytes it covers
+     */
+    public Spliterator<CharSequence> spliterator() {
+        int last = segments.length - 1;
+        return new LineSpliterator(0, 0, last, last < 0 ? 0 : segments[last].limit());
+    }
+
+    /**
+     * Covers the bytes from a position in one segment up to an end
+     * in another (or the same) segment.
+     */
+    private final class LineSpliterator implements Spliterator<CharSequence> {
+        private static final int MIN_SPLIT_SIZE = 1 << 16;
+
+        private final LineView view = new LineView(charset);
+        private int segment;
+        private int position;
+        private final int lastSegment;
+        private final int lastEnd;
+
+        LineSpliterator(int segment, int position, int lastSegment, int lastEnd) {
+            this.segment = segment;
+            this.position = position;
+            this.lastSegment = lastSegment;
+            this.lastEnd = lastEnd;
+        }
+
+        private int limit() {
+            return segment == lastSegment ? lastEnd : segments[segment].limit();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super CharSequence> action) {
+            while (segment <= lastSegment) {
+                int limit = limit();
+
+                if (position < limit) {
+                    ByteBuffer buffer = segments[segment];
+                    int lineBreak = Bytes.indexOfNewline(buffer, position, limit);
+                    int next = lineBreak < 0 ? limit : lineBreak + 1;
+                    int end = lineBreak < 0 ? limit : lineBreak;
+
+                    if (end > position && buffer.get(end - 1) == '\r') {
+                        end--;
+                    }
+
+                    view.reset(buffer, position, end);
+                    position = next;
+                    action.accept(view);
+                    return true;
+                }
+
+                segment++;
+                position = 0;
+            }
+
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super CharSequence> action) {
+            while (tryAdvance(action)) {
+                // every line was passed on
+            }
+        }
+
+        @Override
+        public Spliterator<CharSequence> trySplit() {
+            if (segment > lastSegment) {
+                return null;
+            }
+
+            if (segment < lastSegment) {
+                // segments end at line breaks, so they can be split between
+                int middle = (segment + lastSegment + 1) >>> 1;
+                LineSpliterator prefix = new LineSpliterator(segment, position, middle - 1,
+                        segments[middle - 1].limit());
+                segment = middle;
+                position = 0;
+                return prefix;
+            }
+
+            if (lastEnd - position < MIN_SPLIT_SIZE) {
+                return null;
+            }
+
+            int lineBreak = Bytes.indexOfNewline(segments[segment], (position + lastEnd) >>> 1, lastEnd);
+            if (lineBreak < 0 || lineBreak + 1 == lastEnd) {
+                return null;
+            }
+
+            LineSpliterator prefix = new LineSpliterator(segment, position, segment, lineBreak + 1);
+            position = lineBreak + 1;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            long remaining = 0;
+            for (int i = segment; i <= lastSegment; i++) {
+                remaining += (i == lastSegment ? lastEnd : segments[i].limit()) - (i == segment ? position : 0);
+            }
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+}
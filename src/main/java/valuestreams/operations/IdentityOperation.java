@@ -5,4 +5,9 @@ public class IdentityOperation<T> implements Operation<T, T> {
     public T apply(T value) {
         return value;
     }
+
+    @Override
+    public OperationType type() {
+        return OperationType.IDENTITY;
+    }
 }
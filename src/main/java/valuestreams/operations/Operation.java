@@ -3,4 +3,14 @@ package valuestreams.operations;
 @FunctionalInterface
 public interface Operation<T, R> {
     R apply(T value);
+
+    /**
+     * @return The kind of the operation, which tells, for
+     * example, whether a null result means the value was
+     * rejected. Operations which don't override it are
+     * custom operations.
+     */
+    default OperationType type() {
+        return OperationType.CUSTOM;
+    }
 }
@@ -3,5 +3,6 @@ package valuestreams.operations;
 public enum OperationType {
     PIPE,
     FILTER,
-    IDENTITY
+    IDENTITY,
+    CUSTOM
 }
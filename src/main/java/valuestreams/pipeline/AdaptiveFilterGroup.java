@@ -0,0 +1,135 @@
+package valuestreams.pipeline;
+
+import valuestreams.operations.Operation;
+import valuestreams.operations.OperationType;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * A run of commutative filters which are applied as a single
+ * operation, in an order which adapts to the data. A random
+ * sample of the values goes through every filter, measuring
+ * how often each one rejects and how long it takes. Every so
+ * many samples the filters are sorted by their cost divided by
+ * their rejection rate, so that cheap filters which reject a
+ * lot run first, and the measurements are halved so that older
+ * data weighs less as the distribution drifts.
+ * An exception thrown by any filter rejects the value.
+ */
+final class AdaptiveFilterGroup<T> implements Operation<T, T> {
+    static final int SAMPLING_PERIOD = 64;
+    static final int SAMPLES_PER_PLAN = 256;
+
+    private final Operation<T, T>[] filters;
+    private volatile int[] order;
+
+    private final AtomicLong samples = new AtomicLong();
+    private final LongAdder weightedSamples = new LongAdder();
+    private final LongAdder[] rejections;
+    private final LongAdder[] nanos;
+
+    private AdaptiveFilterGroup(Operation<T, T>[] filters) {
+        this.filters = filters;
+        this.order = IntStream.range(0, filters.length).toArray();
+        this.rejections = new LongAdder[filters.length];
+        this.nanos = new LongAdder[filters.length];
+
+        for (int i = 0; i < filters.length; i++) {
+            rejections[i] = new LongAdder();
+            nanos[i] = new LongAdder();
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static <T> AdaptiveFilterGroup<T> of(Operation<T, T> filter) {
+        return new AdaptiveFilterGroup<>(new Operation[] {filter});
+    }
+
+    /**
+     * @return A new group with the filters of this one followed
+     * by the given filter, with no measurements yet.
+     */
+    AdaptiveFilterGroup<T> with(Operation<T, T> filter) {
+        Operation<T, T>[] extended = Arrays.copyOf(filters, filters.length + 1);
+        extended[filters.length] = filter;
+        return new AdaptiveFilterGroup<>(extended);
+    }
+
+    @Override
+    public T apply(T value) {
+        if (ThreadLocalRandom.current().nextInt(SAMPLING_PERIOD) == 0) {
+            return applySampled(value);
+        }
+
+        for (int index : order) {
+            if (!passes(filters[index], value)) {
+                return null;
+            }
+        }
+
+        return value;
+    }
+
+    @Override
+    public OperationType type() {
+        return OperationType.FILTER;
+    }
+
+    private T applySampled(T value) {
+        boolean passed = true;
+
+        // every filter runs on a sample, otherwise the later ones would only see what the earlier ones let through
+        for (int i = 0; i < filters.length; i++) {
+            long start = System.nanoTime();
+            boolean result = passes(filters[i], value);
+            nanos[i].add(System.nanoTime() - start);
+
+            if (!result) {
+                rejections[i].increment();
+                passed = false;
+            }
+        }
+
+        weightedSamples.increment();
+        if (samples.incrementAndGet() % SAMPLES_PER_PLAN == 0) {
+            replan();
+        }
+
+        return passed ? value : null;
+    }
+
+    private static <T> boolean passes(Operation<T, T> filter, T value) {
+        try {
+            return filter.apply(value) != null;
+        } catch (Exception ex) {
+            return false;
+        }
+    }
+
+    private synchronized void replan() {
+        double sampled = Math.max(weightedSamples.sum(), 1L);
+        weightedSamples.add(-weightedSamples.sum() / 2);
+        double[] ranks = new double[filters.length];
+
+        for (int i = 0; i < filters.length; i++) {
+            // smoothed, so that a filter which never rejected still gets a finite rank
+            double rejectionRate = (rejections[i].sum() + 1.0) / (sampled + 2.0);
+            double cost = Math.max(nanos[i].sum(), 1L) / sampled;
+            ranks[i] = cost / rejectionRate;
+
+            rejections[i].add(-rejections[i].sum() / 2);
+            nanos[i].add(-nanos[i].sum() / 2);
+        }
+
+        order = IntStream.range(0, filters.length)
+                .boxed()
+                .sorted(Comparator.comparingDouble(i -> ranks[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+}
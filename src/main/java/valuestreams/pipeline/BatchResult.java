@@ -0,0 +1,93 @@
+package valuestreams.pipeline;
+
+import valuestreams.Value;
+
+import java.util.function.ObjIntConsumer;
+
+/**
+ * The outcome of applying a pipeline on a batch of inputs.
+ * Results are kept in a single array indexed like the inputs,
+ * and whether each one is present is tracked in a bitmap, so
+ * no wrapper object is created per element.
+ * @param <O> The output type of the pipeline.
+ */
+public class BatchResult<O> {
+    private final Object[] values;
+    private final long[] presence;
+
+    BatchResult(Object[] values, long[] presence) {
+        this.values = values;
+        this.presence = presence;
+    }
+
+    /**
+     * @return The number of inputs in the batch, whether their
+     * results are present or not.
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * @return The indexes of the present results as a compressed
+     * bitmap, which can be combined with those of other batches
+     * over the same inputs.
+     */
+    public SelectionBitmap toSelection() {
+        return SelectionBitmap.fromMask(presence);
+    }
+
+    /**
+     * @return The number of present results.
+     */
+    public int presentCount() {
+        int count = 0;
+        for (long word : presence) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public boolean isPresent(int index) {
+        if (index < 0 || index >= values.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + values.length);
+        }
+        return (presence[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Gets the result of the input at the given index.
+     * @param index The index of the input in the batch
+     * @return The result, or null if it's absent.
+     */
+    @SuppressWarnings("unchecked")
+    public O get(int index) {
+        return isPresent(index) ? (O) values[index] : null;
+    }
+
+    /**
+     * Wraps a single result in a value.
+     * @param index The index of the input in the batch
+     * @return A Value containing the result, or an empty one.
+     */
+    public Value<O> getValue(int index) {
+        O result = get(index);
+        return result != null ? Value.of(result) : Value.empty();
+    }
+
+    /**
+     * Runs an action on every present result, in order.
+     * @param action A consumer of the result and its index
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachPresent(ObjIntConsumer<? super O> action) {
+        for (int w = 0; w < presence.length; w++) {
+            long word = presence[w];
+            while (word != 0) {
+                int index = (w << 6) + Long.numberOfTrailingZeros(word);
+                action.accept((O) values[index], index);
+                word &= word - 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package valuestreams.pipeline;
+
+import valuestreams.operations.Operation;
+import valuestreams.operations.OperationType;
+
+/**
+ * Hands the same value to every branch and collects their
+ * results. Each branch is applied on its own, so a branch which
+ * fails or filters the value out doesn't affect the others.
+ */
+final class BranchOperation<T> implements Operation<T, BranchResults> {
+    private final Branches<T> branches;
+
+    BranchOperation(Branches<T> branches) {
+        this.branches = branches;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public BranchResults apply(T value) {
+        Object[] values = new Object[branches.size()];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = ((Pipeline<T, Object>) branches.pipeline(i)).applyOrNull(value);
+        }
+
+        return new BranchResults(branches, values);
+    }
+
+    @Override
+    public OperationType type() {
+        return OperationType.PIPE;
+    }
+}
@@ -0,0 +1,123 @@
+package valuestreams.pipeline;
+
+import valuestreams.Value;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The results of all branches for a single input. The names are
+ * shared by all results of the same branches, so every record
+ * holds just an array of values, where an absent result is null.
+ */
+public final class BranchResults {
+    private final Branches<?> branches;
+    private final Object[] values;
+
+    BranchResults(Branches<?> branches, Object[] values) {
+        this.branches = branches;
+        this.values = values;
+    }
+
+    /**
+     * @return The number of branches
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * @return The names of the branches, in the same order as
+     * their indexes
+     */
+    public List<String> names() {
+        return branches.names();
+    }
+
+    public boolean isPresent(String name) {
+        return values[indexOf(name)] != null;
+    }
+
+    public boolean isPresent(int index) {
+        return values[index] != null;
+    }
+
+    /**
+     * @return True if every branch produced a result
+     */
+    public boolean allPresent() {
+        for (Object value : values) {
+            if (value == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of branches which produced a result
+     */
+    public int presentCount() {
+        int count = 0;
+        for (Object value : values) {
+            if (value != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the result of a branch. The type isn't checked, so
+     * assigning the result to the wrong type fails with a
+     * ClassCastException.
+     * @param name The name of the branch
+     * @param <R> The output type of the branch
+     * @return The result, or null if it's absent
+     * @throws NoSuchElementException If there's no branch with
+     * the given name
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R get(String name) {
+        return (R) values[indexOf(name)];
+    }
+
+    /**
+     * Gets the result of a branch by its position, which is
+     * faster than looking it up by name.
+     * @param index The index of the branch
+     * @param <R> The output type of the branch
+     * @return The result, or null if it's absent
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R get(int index) {
+        return (R) values[index];
+    }
+
+    /**
+     * @param name The name of the branch
+     * @param <R> The output type of the branch
+     * @return A Value containing the result, or an empty one.
+     */
+    public <R> Value<R> getValue(String name) {
+        R result = get(name);
+        return result != null ? Value.of(result) : Value.empty();
+    }
+
+    private int indexOf(String name) {
+        int index = branches.indexOf(name);
+        if (index < 0) {
+            throw new NoSuchElementException("No branch named " + name);
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("BranchResults{");
+        for (int i = 0; i < values.length; i++) {
+            builder.append(i == 0 ? "" : ", ").append(branches.name(i)).append('=').append(values[i]);
+        }
+        return builder.append('}').toString();
+    }
+}
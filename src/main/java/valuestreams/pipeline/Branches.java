@@ -0,0 +1,91 @@
+package valuestreams.pipeline;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Named pipelines which all take the output of the same pipeline
+ * as their input. Branches are immutable; every call to and()
+ * returns a new instance.
+ * {@code Branches.of("price", pricePipeline).and("tax", taxPipeline)}
+ * @param <T> The input type of the branches
+ */
+public final class Branches<T> {
+    private final String[] names;
+    private final Pipeline<T, ?>[] pipelines;
+    private final Map<String, Integer> indexes;
+
+    private Branches(String[] names, Pipeline<T, ?>[] pipelines) {
+        this.names = names;
+        this.pipelines = pipelines;
+        this.indexes = new HashMap<>();
+
+        for (int i = 0; i < names.length; i++) {
+            indexes.put(names[i], i);
+        }
+    }
+
+    /**
+     * @param name The name of the branch
+     * @param pipeline The pipeline of the branch
+     * @param <T> The input type of the branch
+     * @return A single branch
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static <T> Branches<T> of(String name, Pipeline<T, ?> pipeline) {
+        return new Branches<>(new String[] {Objects.requireNonNull(name)},
+                new Pipeline[] {Objects.requireNonNull(pipeline)});
+    }
+
+    /**
+     * @param name The name of the branch, which must differ from
+     *             the names of the other branches
+     * @param pipeline The pipeline of the branch
+     * @return New branches with the given one added at the end
+     */
+    public Branches<T> and(String name, Pipeline<T, ?> pipeline) {
+        Objects.requireNonNull(pipeline);
+        if (indexes.containsKey(Objects.requireNonNull(name))) {
+            throw new IllegalArgumentException("Duplicate branch name: " + name);
+        }
+
+        String[] extendedNames = Arrays.copyOf(names, names.length + 1);
+        Pipeline<T, ?>[] extendedPipelines = Arrays.copyOf(pipelines, pipelines.length + 1);
+        extendedNames[names.length] = name;
+        extendedPipelines[pipelines.length] = pipeline;
+        return new Branches<>(extendedNames, extendedPipelines);
+    }
+
+    /**
+     * @return The names of the branches in the order they were
+     * added
+     */
+    public List<String> names() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    Pipeline<T, ?> pipeline(int index) {
+        return pipelines[index];
+    }
+
+    String name(int index) {
+        return names[index];
+    }
+
+    /**
+     * @return The index of the branch, or -1 if there's no
+     * branch with the given name.
+     */
+    int indexOf(String name) {
+        Integer index = indexes.get(name);
+        return index != null ? index : -1;
+    }
+}
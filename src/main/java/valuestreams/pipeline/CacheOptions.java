@@ -0,0 +1,115 @@
+package valuestreams.pipeline;
+
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Settings for a CachingOperation. Options are immutable; every
+ * setter returns a new instance.
+ * {@code CacheOptions.defaults().maximumSize(50_000).cacheEmpty(true)}
+ */
+public final class CacheOptions {
+    private static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+    private static final CacheOptions DEFAULTS =
+            new CacheOptions(DEFAULT_MAXIMUM_SIZE, null, false, DEFAULT_CONCURRENCY_LEVEL);
+
+    private final long maximum;
+    private final ToIntBiFunction<Object, Object> weigher;
+    private final boolean cacheEmpty;
+    private final int concurrencyLevel;
+
+    private CacheOptions(long maximum, ToIntBiFunction<Object, Object> weigher, boolean cacheEmpty,
+                         int concurrencyLevel) {
+        this.maximum = maximum;
+        this.weigher = weigher;
+        this.cacheEmpty = cacheEmpty;
+        this.concurrencyLevel = concurrencyLevel;
+    }
+
+    /**
+     * @return Options which keep up to 10,000 entries, don't
+     * cache empty results, and split the cache into up to 16
+     * independently locked segments.
+     */
+    public static CacheOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * @param maximumSize The maximum number of cached entries
+     * @return New options bounded by the number of entries
+     */
+    public CacheOptions maximumSize(long maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        return new CacheOptions(maximumSize, null, cacheEmpty, concurrencyLevel);
+    }
+
+    /**
+     * Bounds the cache by the total weight of its entries rather
+     * than their number. Since the options aren't typed, the
+     * types of the weigher usually have to be given explicitly:
+     * {@code options.maximumWeight(1 << 20, (String key, byte[] value) -> value.length)}
+     * An entry heavier than the share of a single segment of the
+     * cache is never cached.
+     * @param maximumWeight The maximum total weight
+     * @param weigher Computes the weight of an entry, which must
+     *                not be negative. It's only called for
+     *                present results; cached empty results
+     *                always weigh 1.
+     * @param <K> The input type of the cached operation
+     * @param <V> The output type of the cached operation
+     * @return New options bounded by weight
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> CacheOptions maximumWeight(long maximumWeight, ToIntBiFunction<K, V> weigher) {
+        if (maximumWeight < 1) {
+            throw new IllegalArgumentException("Maximum weight must be positive");
+        }
+        if (weigher == null) {
+            throw new NullPointerException("Weigher must not be null");
+        }
+        return new CacheOptions(maximumWeight, (ToIntBiFunction<Object, Object>) weigher, cacheEmpty,
+                concurrencyLevel);
+    }
+
+    /**
+     * @param cacheEmpty Whether empty results are cached too,
+     *                   so that inputs which fail aren't
+     *                   processed again
+     * @return New options using the given setting
+     */
+    public CacheOptions cacheEmpty(boolean cacheEmpty) {
+        return new CacheOptions(maximum, weigher, cacheEmpty, concurrencyLevel);
+    }
+
+    /**
+     * @param concurrencyLevel The maximum number of segments,
+     *                         each of which is locked separately.
+     *                         Small caches use fewer segments.
+     * @return New options using the given concurrency level
+     */
+    public CacheOptions concurrencyLevel(int concurrencyLevel) {
+        if (concurrencyLevel < 1) {
+            throw new IllegalArgumentException("Concurrency level must be positive");
+        }
+        return new CacheOptions(maximum, weigher, cacheEmpty, concurrencyLevel);
+    }
+
+    long getMaximum() {
+        return maximum;
+    }
+
+    ToIntBiFunction<Object, Object> getWeigher() {
+        return weigher;
+    }
+
+    boolean isCacheEmpty() {
+        return cacheEmpty;
+    }
+
+    int getConcurrencyLevel() {
+        return concurrencyLevel;
+    }
+}
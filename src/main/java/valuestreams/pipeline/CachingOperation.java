@@ -0,0 +1,273 @@
+package valuestreams.pipeline;
+
+import valuestreams.operations.Operation;
+import valuestreams.operations.OperationType;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Memoizes an operation, or a whole pipeline, so that inputs
+ * which repeat aren't processed again. The cache is bounded by
+ * the number or the weight of its entries, and is split into
+ * segments which are locked separately. Each segment evicts its
+ * least recently used entry, but only admits a new entry in its
+ * place if the new key was seen more often recently, which keeps
+ * popular keys from being pushed out by a burst of one-off ones.
+ * Results are computed outside of any lock, so an input may be
+ * processed more than once if it's requested by several threads
+ * at the same time. Null inputs are never cached.
+ * {@code
+ * CachingOperation<String, Product> lookup = CachingOperation.of(productPipeline, CacheOptions.defaults());
+ * Pipeline<String, Product> pipeline = Pipeline.input(String.class).filter(code -> !code.isEmpty()).chain(lookup);
+ * }
+ * @param <T> The input type of the operation
+ * @param <R> The output type of the operation
+ */
+public final class CachingOperation<T, R> implements Operation<T, R> {
+    private static final Object EMPTY = new Object();
+
+    private final Operation<T, R> operation;
+    private final OperationType type;
+    private final boolean cacheEmpty;
+    private final ToIntBiFunction<Object, Object> weigher;
+    private final Segment[] segments;
+    private final int segmentShift;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private CachingOperation(Operation<T, R> operation, OperationType type, CacheOptions options) {
+        this.operation = Objects.requireNonNull(operation);
+        this.type = type;
+        this.cacheEmpty = options.isCacheEmpty();
+        this.weigher = options.getWeigher();
+
+        long maximum = options.getMaximum();
+        int segmentCount = 1;
+        while (segmentCount < options.getConcurrencyLevel() && maximum / (segmentCount * 2L) >= 32) {
+            segmentCount <<= 1;
+        }
+
+        this.segments = new Segment[segmentCount];
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+        long sketchSize = weigher == null ? maximum / segmentCount : Math.min(maximum / segmentCount, 1 << 16);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(maximum / segmentCount, sketchSize);
+        }
+    }
+
+    /**
+     * @param operation The operation to cache the results of
+     * @param options The bounds and behaviour of the cache
+     * @param <T> The input type of the operation
+     * @param <R> The output type of the operation
+     * @return A new caching operation
+     */
+    public static <T, R> CachingOperation<T, R> of(Operation<T, R> operation, CacheOptions options) {
+        return new CachingOperation<>(operation, operation.type(), options);
+    }
+
+    /**
+     * Caches the results of a whole pipeline. Since the pipeline
+     * turns failures into empty results, a failed input is cached
+     * as empty if the options enable caching empty results.
+     * @param pipeline The pipeline to cache the results of
+     * @param options The bounds and behaviour of the cache
+     * @param <T> The input type of the pipeline
+     * @param <R> The output type of the pipeline
+     * @return A new caching operation
+     */
+    public static <T, R> CachingOperation<T, R> of(Pipeline<T, R> pipeline, CacheOptions options) {
+        return new CachingOperation<>(pipeline::applyOrNull, OperationType.CUSTOM, options);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public R apply(T value) {
+        if (value == null) {
+            return operation.apply(null);
+        }
+
+        int hash = spread(value.hashCode());
+        Segment segment = segments[segmentShift == 32 ? 0 : hash >>> segmentShift];
+
+        Object cached = segment.get(value, hash);
+        if (cached != null) {
+            hits.increment();
+            return cached == EMPTY ? null : (R) cached;
+        }
+
+        misses.increment();
+        R result = operation.apply(value);
+
+        if (result != null || cacheEmpty) {
+            Object stored = result != null ? result : EMPTY;
+            // empty entries aren't passed to the weigher, which would have nothing to measure
+            int weight = weigher == null || result == null ? 1 : weigher.applyAsInt(value, result);
+            if (weight < 0) {
+                throw new IllegalStateException("Negative weight " + weight + " for " + value);
+            }
+            evictions.add(segment.put(value, hash, stored, weight));
+        }
+
+        return result;
+    }
+
+    @Override
+    public OperationType type() {
+        return type;
+    }
+
+    /**
+     * @return The number of cached entries
+     */
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of entries which were removed to make
+     * room for new ones.
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return The ratio of hits to all lookups, or 0 if there
+     * were none.
+     */
+    public double hitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    /**
+     * Resets the hit, miss, and eviction counters without
+     * touching the cached entries.
+     */
+    public void resetStats() {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    /**
+     * Removes all cached entries.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Entry {
+        final Object value;
+        final int weight;
+
+        Entry(Object value, int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    private static final class Segment {
+        private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final FrequencySketch sketch;
+        private final long maximumWeight;
+        private long weight;
+
+        Segment(long maximumWeight, long sketchSize) {
+            this.maximumWeight = maximumWeight;
+            this.sketch = new FrequencySketch(sketchSize);
+        }
+
+        synchronized Object get(Object key, int hash) {
+            sketch.increment(hash);
+            Entry entry = entries.get(key);
+            return entry != null ? entry.value : null;
+        }
+
+        /**
+         * @return The number of evicted entries
+         */
+        synchronized int put(Object key, int hash, Object value, int entryWeight) {
+            if (entryWeight > maximumWeight) {
+                return 0;
+            }
+
+            // another thread computed the same entry in the meantime, so it's already admitted
+            Entry previous = entries.get(key);
+            if (previous != null) {
+                entries.put(key, new Entry(value, entryWeight));
+                weight += entryWeight - previous.weight;
+                return evictEldest(Integer.MAX_VALUE);
+            }
+
+            int frequency = sketch.frequency(hash);
+            Iterator<Map.Entry<Object, Entry>> eldest = entries.entrySet().iterator();
+            long freed = 0;
+            int victims = 0;
+
+            // victims are only evicted once the new entry is known to be admitted
+            while (weight - freed + entryWeight > maximumWeight) {
+                Map.Entry<Object, Entry> victim = eldest.next();
+                if (sketch.frequency(spread(victim.getKey().hashCode())) >= frequency) {
+                    return 0;
+                }
+                freed += victim.getValue().weight;
+                victims++;
+            }
+
+            entries.put(key, new Entry(value, entryWeight));
+            weight += entryWeight;
+            return evictEldest(victims);
+        }
+
+        private int evictEldest(int limit) {
+            Iterator<Map.Entry<Object, Entry>> eldest = entries.entrySet().iterator();
+            int evicted = 0;
+
+            while (weight > maximumWeight && evicted < limit) {
+                weight -= eldest.next().getValue().weight;
+                eldest.remove();
+                evicted++;
+            }
+
+            return evicted;
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            weight = 0;
+        }
+    }
+}
@@ -14,9 +14,22 @@ public class CheckedFilter<T> implements CheckedOperation<T, T> {
     @Override
     public T apply(T value) {
         try {
-            return validator.test(value) ? value : null;
+            return applyOrThrow(value);
         } catch (Exception ex) {
             return null;
         }
     }
+
+    /**
+     * Used by instrumented pipelines to see the exceptions
+     * which apply() swallows.
+     */
+    T applyOrThrow(T value) throws Exception {
+        return validator.test(value) ? value : null;
+    }
+
+    @Override
+    public OperationType type() {
+        return OperationType.FILTER;
+    }
 }
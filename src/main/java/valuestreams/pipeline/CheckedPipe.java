@@ -14,9 +14,22 @@ public class CheckedPipe<T, R> implements CheckedOperation<T, R> {
     @Override
     public R apply(T value) {
         try {
-            return mapper.apply(value);
+            return applyOrThrow(value);
         } catch (Exception ex) {
             return null;
         }
     }
+
+    /**
+     * Used by instrumented pipelines to see the exceptions
+     * which apply() swallows.
+     */
+    R applyOrThrow(T value) throws Exception {
+        return mapper.apply(value);
+    }
+
+    @Override
+    public OperationType type() {
+        return OperationType.PIPE;
+    }
 }
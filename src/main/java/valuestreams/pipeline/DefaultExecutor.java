@@ -0,0 +1,23 @@
+package valuestreams.pipeline;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Provides the executor used by asynchronous applications of
+ * a pipeline when none is given. This matches the executor of
+ * CompletableFuture.supplyAsync(). On Java 21 and later this
+ * class is replaced by a version which runs every task on its
+ * own virtual thread (see src/main/java21).
+ */
+final class DefaultExecutor {
+    private static final Executor INSTANCE = ForkJoinPool.getCommonPoolParallelism() > 1
+            ? ForkJoinPool.commonPool()
+            : task -> new Thread(task).start();
+
+    private DefaultExecutor() {}
+
+    static Executor get() {
+        return INSTANCE;
+    }
+}
@@ -16,4 +16,9 @@ public class Filter<T> implements Operation<T, T> {
     public T apply(T value) {
         return validator.test(value) ? value : null;
     }
+
+    @Override
+    public OperationType type() {
+        return OperationType.FILTER;
+    }
 }
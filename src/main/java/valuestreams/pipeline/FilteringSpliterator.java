@@ -0,0 +1,62 @@
+package valuestreams.pipeline;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator which applies a pipeline on the elements of
+ * another spliterator and skips the inputs which produced no
+ * result, without wrapping any result in a Value.
+ */
+final class FilteringSpliterator<I, O> implements Spliterator<O>, Consumer<I> {
+    private static final int KEPT_CHARACTERISTICS = ORDERED | CONCURRENT | IMMUTABLE;
+
+    private final Pipeline<I, O> pipeline;
+    private final Spliterator<I> source;
+    private O current;
+
+    FilteringSpliterator(Pipeline<I, O> pipeline, Spliterator<I> source) {
+        this.pipeline = pipeline;
+        this.source = source;
+    }
+
+    @Override
+    public void accept(I input) {
+        current = pipeline.applyOrNull(input);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super O> action) {
+        while (source.tryAdvance(this)) {
+            if (current != null) {
+                O result = current;
+                current = null;
+                action.accept(result);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super O> action) {
+        source.forEachRemaining(input -> pipeline.applyInto(input, action));
+    }
+
+    @Override
+    public Spliterator<O> trySplit() {
+        Spliterator<I> prefix = source.trySplit();
+        return prefix != null ? new FilteringSpliterator<>(pipeline, prefix) : null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return source.estimateSize();
+    }
+
+    @Override
+    public int characteristics() {
+        return (source.characteristics() & KEPT_CHARACTERISTICS) | NONNULL;
+    }
+}
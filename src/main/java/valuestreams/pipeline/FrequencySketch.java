@@ -0,0 +1,73 @@
+package valuestreams.pipeline;
+
+/**
+ * An approximate count of how often keys were seen recently,
+ * used by CachingOperation to decide whether a new entry is worth
+ * more than the one it would evict. It's a count-min sketch of
+ * 4-bit counters, sixteen to a long, and all counters are halved
+ * once the number of increments reaches ten times the number of
+ * counters per row, so that old popularity fades away.
+ * Instances are not thread-safe.
+ */
+final class FrequencySketch {
+    private static final int[] SEEDS = {0x97cb3127, 0xb492b66f, 0x9ae16a3b, 0x6c91f1e5};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAXIMUM_COUNT = 15;
+
+    private final long[] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(long expectedEntries) {
+        int size = 16;
+        while (size < expectedEntries && size < (1 << 20)) {
+            size <<= 1;
+        }
+        this.table = new long[size];
+        this.mask = size - 1;
+        this.sampleSize = 10 * size;
+    }
+
+    int frequency(int hash) {
+        int frequency = MAXIMUM_COUNT;
+        for (int depth = 0; depth < SEEDS.length; depth++) {
+            int h = rehash(hash, depth);
+            int count = (int) ((table[h & mask] >>> shift(h)) & MAXIMUM_COUNT);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(int hash) {
+        boolean added = false;
+
+        for (int depth = 0; depth < SEEDS.length; depth++) {
+            int h = rehash(hash, depth);
+            int index = h & mask;
+            int shift = shift(h);
+
+            if (((table[index] >>> shift) & MAXIMUM_COUNT) < MAXIMUM_COUNT) {
+                table[index] += 1L << shift;
+                added = true;
+            }
+        }
+
+        if (added && ++additions >= sampleSize) {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions >>>= 1;
+        }
+    }
+
+    private static int rehash(int hash, int depth) {
+        int h = hash * SEEDS[depth];
+        return h ^ (h >>> 17);
+    }
+
+    private static int shift(int h) {
+        // the top four bits choose one of the sixteen counters in the long
+        return (h >>> 28) << 2;
+    }
+}
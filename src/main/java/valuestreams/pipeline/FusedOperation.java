@@ -0,0 +1,77 @@
+package valuestreams.pipeline;
+
+import valuestreams.operations.IdentityOperation;
+import valuestreams.operations.Operation;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Objects;
+
+/**
+ * A single operation which runs a whole chain of operations.
+ * The chain is combined into one method handle, where each
+ * stage, including the first one, is guarded by a null check,
+ * rather than being walked in a loop. A null input therefore
+ * yields null without reaching any stage, like it does in the
+ * pipeline. The handle is held in an instance field, which
+ * HotSpot doesn't fold into a constant, so invoking it goes
+ * through the compiled form of the combined handle and the
+ * stages aren't inlined into the caller of apply().
+ */
+final class FusedOperation<T, R> implements Operation<T, R> {
+    private static final MethodHandle APPLY;
+    private static final MethodHandle IS_NULL;
+    private static final MethodHandle IDENTITY = MethodHandles.identity(Object.class);
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            APPLY = lookup.findVirtual(Operation.class, "apply",
+                    MethodType.methodType(Object.class, Object.class));
+            IS_NULL = lookup.findStatic(Objects.class, "isNull",
+                    MethodType.methodType(boolean.class, Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private final MethodHandle chain;
+
+    private FusedOperation(MethodHandle chain) {
+        this.chain = chain;
+    }
+
+    static <T, R> FusedOperation<T, R> of(Operation<?, ?>[] operations, int count) {
+        MethodHandle chain = null;
+
+        for (int i = 0; i < count; i++) {
+            Operation<?, ?> operation = operations[i];
+            if (operation instanceof IdentityOperation) {
+                continue;
+            }
+
+            MethodHandle stage = operation instanceof FusedOperation
+                    ? ((FusedOperation<?, ?>) operation).chain
+                    : APPLY.bindTo(operation);
+
+            MethodHandle guarded = MethodHandles.guardWithTest(IS_NULL, IDENTITY, stage);
+            chain = chain == null ? guarded : MethodHandles.filterReturnValue(chain, guarded);
+        }
+
+        return new FusedOperation<>(chain == null ? IDENTITY : chain);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public R apply(T value) {
+        try {
+            return (R) chain.invokeExact((Object) value);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+}
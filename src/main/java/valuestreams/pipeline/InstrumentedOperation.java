@@ -0,0 +1,125 @@
+package valuestreams.pipeline;
+
+import valuestreams.functions.CheckedFunction;
+import valuestreams.operations.Operation;
+import valuestreams.operations.OperationType;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps an operation of an instrumented pipeline and records
+ * what happens to every value which passes through it. The
+ * counters are LongAdders, so threads applying the pipeline at
+ * the same time don't contend on a single memory location.
+ * Latencies go into a histogram with one bucket per power of
+ * two nanoseconds, and can be sampled to reduce the cost of
+ * reading the clock.
+ */
+final class InstrumentedOperation<T, R> implements Operation<T, R> {
+    static final int LATENCY_BUCKETS = 64;
+
+    private final Operation<T, R> operation;
+    private final CheckedFunction<T, R> throwing;
+    private final int index;
+    private final int samplingPeriod;
+
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder nullOutputs = new LongAdder();
+    private final LongAdder exceptions = new LongAdder();
+    private final LongAdder sampledInvocations = new LongAdder();
+    private final LongAdder sampledNanos = new LongAdder();
+    private final LongAdder[] latencies = new LongAdder[LATENCY_BUCKETS];
+    private volatile Exception lastException;
+
+    @SuppressWarnings("unchecked")
+    InstrumentedOperation(Operation<T, R> operation, int index, int samplingPeriod) {
+        this.operation = operation;
+        this.index = index;
+        this.samplingPeriod = samplingPeriod;
+
+        // checked operations swallow their exceptions, so they're called through the throwing path
+        if (operation instanceof CheckedPipe) {
+            this.throwing = ((CheckedPipe<T, R>) operation)::applyOrThrow;
+        } else if (operation instanceof CheckedFilter) {
+            CheckedFilter<T> filter = (CheckedFilter<T>) operation;
+            this.throwing = value -> (R) filter.applyOrThrow(value);
+        } else {
+            this.throwing = null;
+        }
+
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            latencies[i] = new LongAdder();
+        }
+    }
+
+    Operation<T, R> unwrap() {
+        return operation;
+    }
+
+    @Override
+    public R apply(T value) {
+        invocations.increment();
+        boolean sampled = samplingPeriod == 1 || ThreadLocalRandom.current().nextInt(samplingPeriod) == 0;
+        long start = sampled ? System.nanoTime() : 0L;
+
+        R result;
+        try {
+            result = throwing != null ? throwing.apply(value) : operation.apply(value);
+        } catch (Exception ex) {
+            if (sampled) {
+                recordLatency(System.nanoTime() - start);
+            }
+            exceptions.increment();
+            lastException = ex;
+
+            if (throwing != null) {
+                return null;
+            }
+            throw ex instanceof RuntimeException ? (RuntimeException) ex : new UndeclaredThrowableException(ex);
+        }
+
+        if (sampled) {
+            recordLatency(System.nanoTime() - start);
+        }
+        if (result == null) {
+            nullOutputs.increment();
+        }
+
+        return result;
+    }
+
+    @Override
+    public OperationType type() {
+        return operation.type();
+    }
+
+    private void recordLatency(long nanos) {
+        sampledInvocations.increment();
+        sampledNanos.add(nanos);
+        latencies[64 - Long.numberOfLeadingZeros(nanos)].increment();
+    }
+
+    StageSnapshot snapshot() {
+        long[] histogram = new long[LATENCY_BUCKETS];
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            histogram[i] = latencies[i].sum();
+        }
+
+        return new StageSnapshot(index, operation.type(), invocations.sum(), nullOutputs.sum(), exceptions.sum(),
+                lastException, sampledInvocations.sum(), sampledNanos.sum(), histogram);
+    }
+
+    void reset() {
+        invocations.reset();
+        nullOutputs.reset();
+        exceptions.reset();
+        sampledInvocations.reset();
+        sampledNanos.reset();
+        for (LongAdder bucket : latencies) {
+            bucket.reset();
+        }
+        lastException = null;
+    }
+}
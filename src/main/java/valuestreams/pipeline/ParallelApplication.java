@@ -0,0 +1,129 @@
+package valuestreams.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs a pipeline over a spliterator on a fork/join pool. The
+ * input is split until each part is within the granularity of
+ * the options, and the present results of every part are
+ * collected either in a tree of buffers which keeps the input
+ * order, or in one buffer per worker thread.
+ */
+final class ParallelApplication<I, O> {
+    private final Pipeline<I, O> pipeline;
+    private final int granularity;
+    private final ForkJoinPool pool;
+    private final boolean ordered;
+
+    ParallelApplication(Pipeline<I, O> pipeline, ParallelOptions options) {
+        this.pipeline = pipeline;
+        this.granularity = options.getGranularity();
+        this.pool = options.getPool();
+        this.ordered = options.isOrdered();
+    }
+
+    List<O> run(Spliterator<I> input) {
+        List<O> results = new ArrayList<>();
+
+        if (ordered) {
+            OrderedTask task = new OrderedTask(input);
+            pool.invoke(task);
+            task.collect(results);
+        } else {
+            Map<Thread, List<O>> buffers = new ConcurrentHashMap<>();
+            pool.invoke(new UnorderedTask(input, buffers));
+            buffers.values().forEach(results::addAll);
+        }
+
+        return results;
+    }
+
+    private void process(Spliterator<I> input, List<O> buffer) {
+        input.forEachRemaining(value -> {
+            O result = pipeline.applyOrNull(value);
+            if (result != null) {
+                buffer.add(result);
+            }
+        });
+    }
+
+    private final class OrderedTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Spliterator<I> input;
+        private OrderedTask left;
+        private OrderedTask right;
+        private List<O> buffer;
+
+        OrderedTask(Spliterator<I> input) {
+            this.input = input;
+        }
+
+        @Override
+        protected void compute() {
+            if (input.estimateSize() > granularity) {
+                Spliterator<I> prefix = input.trySplit();
+
+                if (prefix != null) {
+                    left = new OrderedTask(prefix);
+                    right = new OrderedTask(input);
+                    invokeAll(left, right);
+                    return;
+                }
+            }
+
+            buffer = new ArrayList<>();
+            process(input, buffer);
+        }
+
+        void collect(List<O> results) {
+            if (buffer != null) {
+                results.addAll(buffer);
+            } else {
+                left.collect(results);
+                right.collect(results);
+            }
+        }
+    }
+
+    private final class UnorderedTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Spliterator<I> input;
+        private final Map<Thread, List<O>> buffers;
+
+        UnorderedTask(Spliterator<I> input, Map<Thread, List<O>> buffers) {
+            this.input = input;
+            this.buffers = buffers;
+        }
+
+        @Override
+        protected void compute() {
+            Spliterator<I> remaining = input;
+            List<UnorderedTask> forked = new ArrayList<>();
+
+            while (remaining.estimateSize() > granularity) {
+                Spliterator<I> prefix = remaining.trySplit();
+                if (prefix == null) {
+                    break;
+                }
+
+                UnorderedTask task = new UnorderedTask(prefix, buffers);
+                task.fork();
+                forked.add(task);
+            }
+
+            process(remaining, buffers.computeIfAbsent(Thread.currentThread(), thread -> new ArrayList<>()));
+
+            for (UnorderedTask task : forked) {
+                task.join();
+            }
+        }
+    }
+}
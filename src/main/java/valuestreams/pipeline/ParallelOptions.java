@@ -0,0 +1,75 @@
+package valuestreams.pipeline;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Settings for applying a pipeline in parallel. Options are
+ * immutable; every setter returns a new instance.
+ * {@code ParallelOptions.defaults().pool(customPool).granularity(256).ordered(false)}
+ */
+public final class ParallelOptions {
+    private static final int DEFAULT_GRANULARITY = 1024;
+    private static final ParallelOptions DEFAULTS = new ParallelOptions(null, DEFAULT_GRANULARITY, true);
+
+    private final ForkJoinPool pool;
+    private final int granularity;
+    private final boolean ordered;
+
+    private ParallelOptions(ForkJoinPool pool, int granularity, boolean ordered) {
+        this.pool = pool;
+        this.granularity = granularity;
+        this.ordered = ordered;
+    }
+
+    /**
+     * @return Options which run on the common pool, split the
+     * input down to 1024 elements per task, and preserve the
+     * order of the input.
+     */
+    public static ParallelOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * @param pool The pool to run the tasks on
+     * @return New options using the given pool
+     */
+    public ParallelOptions pool(ForkJoinPool pool) {
+        return new ParallelOptions(Objects.requireNonNull(pool), granularity, ordered);
+    }
+
+    /**
+     * @param granularity The number of elements below which the
+     *                    input isn't split any further
+     * @return New options using the given granularity
+     */
+    public ParallelOptions granularity(int granularity) {
+        if (granularity < 1) {
+            throw new IllegalArgumentException("Granularity must be positive");
+        }
+        return new ParallelOptions(pool, granularity, ordered);
+    }
+
+    /**
+     * @param ordered Whether the results must follow the order
+     *                of the input. Unordered execution collects
+     *                results in per-worker buffers which is cheaper.
+     * @return New options using the given ordering mode
+     */
+    public ParallelOptions ordered(boolean ordered) {
+        return new ParallelOptions(pool, granularity, ordered);
+    }
+
+    ForkJoinPool getPool() {
+        return pool != null ? pool : ForkJoinPool.commonPool();
+    }
+
+    int getGranularity() {
+        return granularity;
+    }
+
+    boolean isOrdered() {
+        return ordered;
+    }
+}
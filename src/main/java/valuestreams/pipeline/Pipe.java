@@ -16,4 +16,9 @@ public class Pipe<T, R> implements Operation<T, R> {
     public R apply(T value) {
         return mapper.apply(value);
     }
+
+    @Override
+    public OperationType type() {
+        return OperationType.PIPE;
+    }
 }
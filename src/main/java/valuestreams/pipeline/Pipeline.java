@@ -1,5 +1,6 @@
 package valuestreams.pipeline;
 
+import valuestreams.MutableValue;
 import valuestreams.Value;
 import valuestreams.functions.CheckedFunction;
 import valuestreams.functions.CheckedPredicate;
@@ -9,13 +10,21 @@ import valuestreams.operations.IdentityOperation;
 import valuestreams.operations.MultiArgOperation;
 import valuestreams.operations.Operation;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /*
  * This implementation follows the example given in
@@ -23,9 +32,54 @@ import java.util.stream.Stream;
  */
 
 public class Pipeline<I, O> {
-    private List<Operation<?, ?>> operations;
+    private final Segment segment;
+    private final int size;
+    private final PipelineMetrics metrics;
+    private volatile Operation<?, ?>[] operations;
 
-    private Pipeline() {}
+    private Pipeline(Segment segment, int size, PipelineMetrics metrics) {
+        this.segment = segment;
+        this.size = size;
+        this.metrics = metrics;
+    }
+
+    private static <T, R> Pipeline<T, R> first(Operation<?, ?> operation, PipelineMetrics metrics) {
+        return new Pipeline<>(new Segment(null, 0, operation), 1, metrics);
+    }
+
+    /**
+     * Pipelines share their operations with the pipelines they
+     * were extended from. The operations are stored in segments,
+     * each of which links to the segment holding the operations
+     * before it. A pipeline is its last segment and its length,
+     * so extending it writes the new operation to the next free
+     * slot of that segment, or, if another pipeline took the slot
+     * or the segment is full, starts a new segment. Either way
+     * extending a pipeline takes constant time, and an operation
+     * shared by many pipelines is stored once.
+     */
+    private static final class Segment {
+        private static final int MINIMUM_CAPACITY = 4;
+        private static final AtomicIntegerFieldUpdater<Segment> USED =
+                AtomicIntegerFieldUpdater.newUpdater(Segment.class, "used");
+
+        final Segment previous;
+        final int offset;
+        final Operation<?, ?>[] slots;
+        volatile int used;
+
+        Segment(Segment previous, int offset, Operation<?, ?> first) {
+            this.previous = previous;
+            this.offset = offset;
+            this.slots = new Operation<?, ?>[Math.max(MINIMUM_CAPACITY, offset >>> 1)];
+            this.slots[0] = first;
+            this.used = 1;
+        }
+
+        boolean claim(int index) {
+            return index < slots.length && USED.compareAndSet(this, index, index + 1);
+        }
+    }
 
     /**
      * Initializes a pipeline with the given input class type.
@@ -39,9 +93,7 @@ public class Pipeline<I, O> {
      * {@code Pipeline.input(String.class);}
      */
     public static <T> Pipeline<T, T> input(Class<T> inputType) {
-        Pipeline<T, T> pipeline = new Pipeline<>();
-        pipeline.operations = Collections.singletonList(new IdentityOperation<T>());
-        return pipeline;
+        return first(new IdentityOperation<T>(), null);
     }
 
     /**
@@ -55,9 +107,7 @@ public class Pipeline<I, O> {
      * {@code Pipeline.<String>input()}
      */
     public static <T> Pipeline<T, T> input() {
-        Pipeline<T, T> pipeline = new Pipeline<>();
-        pipeline.operations = Collections.singletonList(new IdentityOperation<T>());
-        return pipeline;
+        return first(new IdentityOperation<T>(), null);
     }
 
     /**
@@ -69,9 +119,7 @@ public class Pipeline<I, O> {
      * {@code Pipeline.input(new MappingOperation<String, Integer>(Integer::valueOf));}
      */
     public static <T, R> Pipeline<T, R> input(Operation<T, R> operation) {
-        Pipeline<T, R> pipeline = new Pipeline<>();
-        pipeline.operations = Collections.singletonList(operation);
-        return pipeline;
+        return first(operation, null);
     }
 
     /**
@@ -83,10 +131,24 @@ public class Pipeline<I, O> {
      * @return A new extended pipeline
      */
     public <R> Pipeline<I, R> chain(Operation<O, R> operation) {
-        Pipeline<I, R> extendedPipeline = new Pipeline<>();
-        extendedPipeline.operations = new ArrayList<>(operations);
-        extendedPipeline.operations.add(operation);
-        return extendedPipeline;
+        if (metrics != null && !(operation instanceof IdentityOperation)) {
+            InstrumentedOperation<O, R> instrumented =
+                    new InstrumentedOperation<>(operation, size, metrics.samplingPeriod());
+            return append(instrumented, metrics.withStage(instrumented));
+        }
+
+        return append(operation, metrics);
+    }
+
+    private <R> Pipeline<I, R> append(Operation<?, ?> operation, PipelineMetrics extendedMetrics) {
+        int index = size - segment.offset;
+
+        if (segment.claim(index)) {
+            segment.slots[index] = operation;
+            return new Pipeline<>(segment, size + 1, extendedMetrics);
+        }
+
+        return new Pipeline<>(new Segment(segment, size, operation), size + 1, extendedMetrics);
     }
 
     public <I2, R> Pipeline<I, R> chain(MultiArgsFunction.TwoArgs<O, I2, R> function2, I2 arg2) {
@@ -126,6 +188,27 @@ public class Pipeline<I, O> {
         return chainWithException(new CheckedPipe<>(mapper));
     }
 
+    /**
+     * Forks the pipeline into named branches. The output of this
+     * pipeline is computed once and given to every branch, and
+     * the results of all branches are collected into a single
+     * record. Branches are applied one after another, and one
+     * which produces no result doesn't stop the others. To join
+     * the branches again, pipe the record into a function which
+     * combines the results.
+     * {@code
+     * Pipeline<String, Enriched> pipeline = parsed
+     *         .branch(Branches.of("price", pricePipeline).and("tax", taxPipeline))
+     *         .filter(BranchResults::allPresent)
+     *         .pipe(results -> new Enriched(results.get("price"), results.get("tax")));
+     * }
+     * @param branches The branches to apply on the output
+     * @return A new extended pipeline
+     */
+    public Pipeline<I, BranchResults> branch(Branches<O> branches) {
+        return chain(new BranchOperation<>(Objects.requireNonNull(branches)));
+    }
+
     /**
      * Chains a filter operation to the pipeline.
      * @param validator The validation predicate
@@ -145,6 +228,177 @@ public class Pipeline<I, O> {
         return chainWithException(new CheckedFilter<>(validator));
     }
 
+    /**
+     * Chains a filter which may be reordered with its neighbours.
+     * Consecutive commutative filters are combined into a single
+     * operation which keeps track of how often each filter rejects
+     * and how long it takes, and runs the cheapest and most
+     * selective ones first. The order is revised periodically, so
+     * it follows changes in the data. Commutative filters must be
+     * free of side effects, and their result must not depend on
+     * which other filters ran before them.
+     * @param validator The validation predicate
+     * @return A new extended pipeline
+     */
+    public Pipeline<I, O> filterCommutative(Predicate<O> validator) {
+        return chainCommutative(new Filter<>(validator));
+    }
+
+    /**
+     * Chains a commutative filter which throws an exception
+     * to the pipeline. See filterCommutative(Predicate).
+     * @param validator The validation predicate
+     * @return A new extended pipeline
+     */
+    public Pipeline<I, O> filterCommutativeWithException(CheckedPredicate<O> validator) {
+        return chainCommutative(new CheckedFilter<>(validator));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Pipeline<I, O> chainCommutative(Operation<O, O> filter) {
+        Operation<?, ?> previous = operationAt(size - 1);
+        if (previous instanceof InstrumentedOperation) {
+            previous = ((InstrumentedOperation<?, ?>) previous).unwrap();
+        }
+
+        if (!(previous instanceof AdaptiveFilterGroup)) {
+            return chain(AdaptiveFilterGroup.of(filter));
+        }
+
+        // the group replaces the last operation rather than following it
+        AdaptiveFilterGroup<O> group = ((AdaptiveFilterGroup<O>) previous).with(filter);
+        Pipeline<I, ?> prefix = size - 1 == segment.offset
+                ? new Pipeline<>(segment.previous, size - 1, null)
+                : new Pipeline<>(segment, size - 1, null);
+
+        if (metrics != null) {
+            InstrumentedOperation<O, O> instrumented =
+                    new InstrumentedOperation<>(group, size - 1, metrics.samplingPeriod());
+            return prefix.append(instrumented, metrics.withLastStage(instrumented));
+        }
+
+        return prefix.append(group, null);
+    }
+
+    /**
+     * Fuses all operations of the pipeline into a single one.
+     * The compiled pipeline behaves exactly like the original
+     * one, but instead of walking the list of operations on
+     * every call it invokes one pre-built chain which skips
+     * identity operations and lets the JIT inline all stages.
+     * Compiling is relatively expensive, so it should be done
+     * once for pipelines which are applied many times.
+     * @return A new pipeline with the same input and output
+     * types
+     */
+    public Pipeline<I, O> compile() {
+        return first(FusedOperation.of(operations(), size), metrics);
+    }
+
+    /**
+     * Creates an equivalent pipeline which records, for every
+     * operation, the number of invocations, null outputs,
+     * rejections, and exceptions, including the ones swallowed
+     * by checked operations, along with a latency histogram.
+     * Operations chained to the instrumented pipeline are
+     * instrumented as well. The original pipeline is left
+     * untouched, so pipelines which aren't instrumented don't
+     * pay anything for it.
+     * @return A new instrumented pipeline
+     */
+    public Pipeline<I, O> instrumented() {
+        return instrumented(1);
+    }
+
+    /**
+     * Same as instrumented(), but measures the latency of only
+     * one in every samplingPeriod invocations, chosen at random,
+     * to reduce the overhead of reading the clock. The counters
+     * are always exact.
+     * @param samplingPeriod The average number of invocations
+     *                       per latency measurement
+     * @return A new instrumented pipeline
+     */
+    public Pipeline<I, O> instrumented(int samplingPeriod) {
+        if (samplingPeriod < 1) {
+            throw new IllegalArgumentException("Sampling period must be positive");
+        }
+
+        Operation<?, ?>[] operations = operations();
+        PipelineMetrics stageMetrics = new PipelineMetrics(samplingPeriod);
+        Pipeline<I, ?> wrapped = null;
+
+        for (int i = 0; i < size; i++) {
+            Operation<?, ?> operation = operations[i];
+            if (operation instanceof InstrumentedOperation) {
+                operation = ((InstrumentedOperation<?, ?>) operation).unwrap();
+            }
+
+            if (!(operation instanceof IdentityOperation)) {
+                InstrumentedOperation<?, ?> stage = new InstrumentedOperation<>(operation, i, samplingPeriod);
+                stageMetrics = stageMetrics.withStage(stage);
+                operation = stage;
+            }
+            wrapped = wrapped == null ? first(operation, null) : wrapped.append(operation, null);
+        }
+
+        return new Pipeline<>(wrapped.segment, size, stageMetrics);
+    }
+
+    /**
+     * @return The operations of the pipeline in order, which are
+     * collected into an array the first time they're needed. Only
+     * the first size elements of the array belong to the pipeline.
+     */
+    private Operation<?, ?>[] operations() {
+        Operation<?, ?>[] flattened = operations;
+
+        if (flattened == null) {
+            if (segment.offset == 0) {
+                flattened = segment.slots;
+            } else {
+                flattened = new Operation<?, ?>[size];
+                int end = size;
+                for (Segment s = segment; s != null; s = s.previous) {
+                    System.arraycopy(s.slots, 0, flattened, s.offset, end - s.offset);
+                    end = s.offset;
+                }
+            }
+            // racing threads build equal arrays, so either may win
+            operations = flattened;
+        }
+
+        return flattened;
+    }
+
+    private Operation<?, ?> operationAt(int index) {
+        Segment s = segment;
+        while (index < s.offset) {
+            s = s.previous;
+        }
+        return s.slots[index - s.offset];
+    }
+
+    /**
+     * @return True if the pipeline was created by instrumented()
+     * or extended from such a pipeline.
+     */
+    public boolean isInstrumented() {
+        return metrics != null;
+    }
+
+    /**
+     * @return The metrics of an instrumented pipeline
+     * @throws IllegalStateException If the pipeline isn't
+     * instrumented
+     */
+    public PipelineMetrics metrics() {
+        if (metrics == null) {
+            throw new IllegalStateException("Pipeline is not instrumented");
+        }
+        return metrics;
+    }
+
     /**
      * Applies the pipeline on a single input.
      * @param input The input value
@@ -152,14 +406,41 @@ public class Pipeline<I, O> {
      * value of the pipeline if everything succeeded, or
      * an empty one otherwise.
      */
-    @SuppressWarnings({"rawtypes", "unchecked"})
     public Value<O> apply(I input) {
+        O result = applyOrNull(input);
+        return result != null ? Value.of(result) : Value.empty();
+    }
+
+    /**
+     * Applies the pipeline on a single input and stores the
+     * result in a reusable holder instead of creating a new
+     * Value.
+     * @param input The input value
+     * @param target The holder to fill with the result
+     * @return The target holder, which contains the final
+     * value of the pipeline if everything succeeded, or is
+     * empty otherwise.
+     */
+    public MutableValue<O> apply(I input, MutableValue<O> target) {
+        return target.set(applyOrNull(input));
+    }
+
+    /**
+     * Applies the pipeline on a single input without wrapping
+     * the result.
+     * @param input The input value
+     * @return The final value of the pipeline if everything
+     * succeeded, or null otherwise.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public O applyOrNull(I input) {
         try {
             Object source = input;
             Object target = null;
+            Operation[] operations = operations();
 
-            for (Operation p : operations) {
-                target = p.apply(source);
+            for (int i = 0; i < size; i++) {
+                target = operations[i].apply(source);
                 source = target;
 
                 if (source == null) {
@@ -167,14 +448,314 @@ public class Pipeline<I, O> {
                 }
             }
 
-            return target != null ? Value.of((O) target) : Value.empty();
+            return (O) target;
         } catch (Exception ex) {
-            return Value.empty();
+            return null;
         }
     }
 
+    /**
+     * Applies the pipeline on a single input without wrapping
+     * the result.
+     * @param input The input value
+     * @param defaultValue The value to return if the pipeline
+     *                     produced no result
+     * @return The final value of the pipeline if everything
+     * succeeded, or the default value otherwise.
+     */
+    public O applyOrDefault(I input, O defaultValue) {
+        O result = applyOrNull(input);
+        return result != null ? result : defaultValue;
+    }
+
+    /**
+     * Applies the pipeline on a single input and hands the
+     * result to a consumer if there is one.
+     * @param input The input value
+     * @param consumer The consumer of the result
+     * @return True if a result was produced and consumed,
+     * false otherwise.
+     */
+    public boolean applyInto(I input, Consumer<? super O> consumer) {
+        O result = applyOrNull(input);
+
+        if (result == null) {
+            return false;
+        }
+
+        consumer.accept(result);
+        return true;
+    }
+
+    /**
+     * Applies the pipeline on a batch of inputs, one operation
+     * at a time over the whole batch rather than one input at
+     * a time through all operations. A null input results in
+     * an absent result.
+     * @param inputs The input values
+     * @return The results of the batch, indexed like the inputs
+     */
+    public BatchResult<O> applyBatch(I[] inputs) {
+        return runBatch(Arrays.copyOf(inputs, inputs.length, Object[].class));
+    }
+
+    /**
+     * Applies the pipeline on a batch of inputs, one operation
+     * at a time over the whole batch rather than one input at
+     * a time through all operations. A null input results in
+     * an absent result.
+     * @param inputs The input values
+     * @return The results of the batch, indexed like the inputs
+     */
+    public BatchResult<O> applyBatch(List<I> inputs) {
+        return runBatch(inputs.toArray(new Object[0]));
+    }
+
+    /**
+     * Applies the pipeline on every input and keeps only which
+     * ones produced a result, as a compressed bitmap of their
+     * indexes. The results themselves are dropped as they are
+     * produced, so this takes far less memory than collecting
+     * them when all that matters is which inputs passed the
+     * filters. A null input is never selected.
+     * @param inputs The input values
+     * @return The indexes of the inputs which produced a result
+     */
+    public SelectionBitmap select(I[] inputs) {
+        SelectionBitmap.Builder builder = SelectionBitmap.builder();
+
+        for (int i = 0; i < inputs.length; i++) {
+            if (inputs[i] != null && applyOrNull(inputs[i]) != null) {
+                builder.add(i);
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Applies the pipeline on every input and keeps only which
+     * ones produced a result. The inputs are indexed in the
+     * order they are iterated, so they can be read lazily from
+     * a source of any size.
+     * @param inputs The input values
+     * @return The indexes of the inputs which produced a result
+     */
+    public SelectionBitmap select(Iterable<? extends I> inputs) {
+        SelectionBitmap.Builder builder = SelectionBitmap.builder();
+        int index = 0;
+
+        for (I input : inputs) {
+            if (input != null && applyOrNull(input) != null) {
+                builder.add(index);
+            }
+            index++;
+        }
+
+        return builder.build();
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private BatchResult<O> runBatch(Object[] values) {
+        long[] presence = new long[(values.length + 63) >>> 6];
+
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                presence[i >>> 6] |= 1L << i;
+            }
+        }
+
+        Operation[] operations = operations();
+
+        for (int i = 0; i < size; i++) {
+            Operation p = operations[i];
+            if (p instanceof IdentityOperation) {
+                continue;
+            }
+
+            for (int w = 0; w < presence.length; w++) {
+                long word = presence[w];
+
+                while (word != 0) {
+                    int bit = Long.numberOfTrailingZeros(word);
+                    int index = (w << 6) + bit;
+                    word &= word - 1;
+
+                    Object target;
+                    try {
+                        target = p.apply(values[index]);
+                    } catch (Exception ex) {
+                        target = null;
+                    }
+
+                    values[index] = target;
+                    if (target == null) {
+                        presence[w] &= ~(1L << bit);
+                    }
+                }
+            }
+        }
+
+        return new BatchResult<>(values, presence);
+    }
+
+    /**
+     * Applies the pipeline on an array of inputs in parallel
+     * using the default options.
+     * @param inputs The input values
+     * @return The present results in the order of the inputs
+     */
+    public List<O> applyParallel(I[] inputs) {
+        return applyParallel(inputs, ParallelOptions.defaults());
+    }
+
+    /**
+     * Applies the pipeline on an array of inputs in parallel.
+     * @param inputs The input values
+     * @param options The pool, split granularity, and ordering
+     *                to use
+     * @return The present results
+     */
+    public List<O> applyParallel(I[] inputs, ParallelOptions options) {
+        return applyParallel(Arrays.spliterator(inputs), options);
+    }
+
+    /**
+     * Applies the pipeline on a list of inputs in parallel
+     * using the default options.
+     * @param inputs The input values
+     * @return The present results in the order of the inputs
+     */
+    public List<O> applyParallel(List<I> inputs) {
+        return applyParallel(inputs, ParallelOptions.defaults());
+    }
+
+    /**
+     * Applies the pipeline on a list of inputs in parallel.
+     * @param inputs The input values
+     * @param options The pool, split granularity, and ordering
+     *                to use
+     * @return The present results
+     */
+    public List<O> applyParallel(List<I> inputs, ParallelOptions options) {
+        return applyParallel(inputs.spliterator(), options);
+    }
+
+    /**
+     * Applies the pipeline on the elements of a spliterator in
+     * parallel using the default options.
+     * @param inputs The input values
+     * @return The present results in the encounter order of
+     * the spliterator
+     */
+    public List<O> applyParallel(Spliterator<I> inputs) {
+        return applyParallel(inputs, ParallelOptions.defaults());
+    }
+
+    /**
+     * Applies the pipeline on the elements of a spliterator in
+     * parallel. The input is split with trySplit(), so how well
+     * the work is balanced depends on the spliterator.
+     * @param inputs The input values
+     * @param options The pool, split granularity, and ordering
+     *                to use
+     * @return The present results
+     */
+    public List<O> applyParallel(Spliterator<I> inputs, ParallelOptions options) {
+        Objects.requireNonNull(options);
+        return new ParallelApplication<>(this, options).run(inputs);
+    }
+
+    /**
+     * Applies the pipeline on a single input asynchronously
+     * using the default executor, which runs each task on a
+     * virtual thread on Java 21 and later, and on the common
+     * pool otherwise.
+     * @param input The input value
+     * @return A future of the result
+     */
     public CompletableFuture<Value<O>> applyAsync(I input) {
-        return CompletableFuture.supplyAsync(() -> apply(input));
+        return applyAsync(input, DefaultExecutor.get());
+    }
+
+    /**
+     * Applies the pipeline on a single input asynchronously.
+     * @param input The input value
+     * @param executor The executor to run the pipeline on
+     * @return A future of the result
+     */
+    public CompletableFuture<Value<O>> applyAsync(I input, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> apply(input), executor);
+    }
+
+    /**
+     * Applies the pipeline asynchronously on a list of inputs
+     * using the default executor, without running more than
+     * the given number of inputs at the same time.
+     * @param inputs The input values
+     * @param maxInFlight The maximum number of inputs being
+     *                    processed at once
+     * @return A future of the results in the order of the inputs
+     */
+    public CompletableFuture<List<Value<O>>> applyAllAsync(List<I> inputs, int maxInFlight) {
+        return applyAllAsync(inputs, maxInFlight, DefaultExecutor.get());
+    }
+
+    /**
+     * Applies the pipeline asynchronously on a list of inputs
+     * without running more than the given number of inputs at
+     * the same time. Each of the maxInFlight tasks submitted to
+     * the executor keeps taking the next pending input until
+     * none is left.
+     * @param inputs The input values
+     * @param maxInFlight The maximum number of inputs being
+     *                    processed at once
+     * @param executor The executor to run the pipeline on
+     * @return A future of the results in the order of the inputs
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<List<Value<O>>> applyAllAsync(List<I> inputs, int maxInFlight, Executor executor) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        Objects.requireNonNull(executor);
+
+        Object[] values = inputs.toArray();
+        @SuppressWarnings("rawtypes")
+        Value<O>[] results = new Value[values.length];
+        CompletableFuture<List<Value<O>>> future = new CompletableFuture<>();
+
+        if (values.length == 0) {
+            future.complete(Collections.emptyList());
+            return future;
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger runningTasks = new AtomicInteger(Math.min(maxInFlight, values.length));
+        Runnable task = () -> {
+            try {
+                for (int index = next.getAndIncrement(); index < values.length; index = next.getAndIncrement()) {
+                    results[index] = apply((I) values[index]);
+                }
+
+                if (runningTasks.decrementAndGet() == 0) {
+                    future.complete(Arrays.asList(results));
+                }
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        };
+
+        for (int i = runningTasks.get(); i > 0; i--) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException ex) {
+                future.completeExceptionally(ex);
+                break;
+            }
+        }
+
+        return future;
     }
 
     /**
@@ -196,6 +777,7 @@ public class Pipeline<I, O> {
      * the pipeline on each input value.
      */
     public Stream<O> applyStreamAndFilter(Stream<I> input) {
-        return input.map(this::apply).filter(Value::isPresent).map(Value::getNullable);
+        return StreamSupport.stream(new FilteringSpliterator<>(this, input.spliterator()), input.isParallel())
+                .onClose(input::close);
     }
 }
@@ -0,0 +1,90 @@
+package valuestreams.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The metrics of an instrumented pipeline, with one set of
+ * counters for every operation except identity operations.
+ * Pipelines extended from an instrumented pipeline share the
+ * counters of the operations they have in common, and so do a
+ * pipeline and its compiled form.
+ * {@code
+ * Pipeline<String, Integer> pipeline = Pipeline.input(String.class).pipe(Integer::valueOf).instrumented();
+ * ...
+ * pipeline.metrics().snapshot().forEach(System.out::println);
+ * }
+ */
+public final class PipelineMetrics {
+    // like the segments of a pipeline, the stages are linked backwards so that
+    // extended pipelines share the stages of the pipeline they were extended from
+    private final PipelineMetrics previous;
+    private final InstrumentedOperation<?, ?> stage;
+    private final int stageCount;
+    private final int samplingPeriod;
+
+    PipelineMetrics(int samplingPeriod) {
+        this(null, null, 0, samplingPeriod);
+    }
+
+    private PipelineMetrics(PipelineMetrics previous, InstrumentedOperation<?, ?> stage, int stageCount,
+                            int samplingPeriod) {
+        this.previous = previous;
+        this.stage = stage;
+        this.stageCount = stageCount;
+        this.samplingPeriod = samplingPeriod;
+    }
+
+    int samplingPeriod() {
+        return samplingPeriod;
+    }
+
+    PipelineMetrics withStage(InstrumentedOperation<?, ?> stage) {
+        return new PipelineMetrics(this, stage, stageCount + 1, samplingPeriod);
+    }
+
+    PipelineMetrics withLastStage(InstrumentedOperation<?, ?> stage) {
+        return new PipelineMetrics(previous, stage, stageCount, samplingPeriod);
+    }
+
+    /**
+     * @return The number of instrumented operations
+     */
+    public int stageCount() {
+        return stageCount;
+    }
+
+    private InstrumentedOperation<?, ?>[] stages() {
+        InstrumentedOperation<?, ?>[] stages = new InstrumentedOperation<?, ?>[stageCount];
+        for (PipelineMetrics metrics = this; metrics.stage != null; metrics = metrics.previous) {
+            stages[metrics.stageCount - 1] = metrics.stage;
+        }
+        return stages;
+    }
+
+    /**
+     * Reads the current numbers of every instrumented operation.
+     * Values which are being processed while the snapshot is
+     * taken may be counted in some numbers but not yet in others.
+     * @return The snapshots in the order of the operations
+     */
+    public List<StageSnapshot> snapshot() {
+        InstrumentedOperation<?, ?>[] stages = stages();
+        List<StageSnapshot> snapshots = new ArrayList<>(stages.length);
+        for (InstrumentedOperation<?, ?> stage : stages) {
+            snapshots.add(stage.snapshot());
+        }
+        return Collections.unmodifiableList(snapshots);
+    }
+
+    /**
+     * Sets all numbers back to zero. Values which are being
+     * processed during the reset may be partially counted.
+     */
+    public void reset() {
+        for (PipelineMetrics metrics = this; metrics.stage != null; metrics = metrics.previous) {
+            metrics.stage.reset();
+        }
+    }
+}
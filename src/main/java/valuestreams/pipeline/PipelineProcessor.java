@@ -0,0 +1,359 @@
+package valuestreams.pipeline;
+
+import org.reactivestreams.Processor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import valuestreams.Value;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A Reactive Streams processor which applies a pipeline on every
+ * item passing through it. It never has more items requested from
+ * upstream than it can hold, which is twice the batch size times
+ * the parallelism, so a slow subscriber slows down the publisher
+ * instead of filling a queue. Waiting items are processed in
+ * batches of up to the configured size on the configured executor,
+ * possibly several batches at once, and results are emitted in
+ * the order of the input.
+ * The processor accepts a single subscriber. Reactive Streams is
+ * an optional dependency, and on Java 9 and later the processor
+ * can be converted to a java.util.concurrent.Flow.Processor with
+ * org.reactivestreams.FlowAdapters.
+ * {@code
+ * PipelineProcessor<String, Integer> processor = PipelineProcessor.of(pipeline, ProcessorOptions.defaults());
+ * publisher.subscribe(processor);
+ * processor.subscribe(subscriber);
+ * }
+ * @param <I> The input type of the pipeline
+ * @param <R> The type of the emitted items
+ */
+public final class PipelineProcessor<I, R> implements Processor<I, R> {
+    private final Pipeline<I, ?> pipeline;
+    private final Function<Object, R> wrapper;
+    private final Executor executor;
+    private final int batchSize;
+    private final int parallelism;
+    private final int capacity;
+
+    private final Queue<I> inputs = new ConcurrentLinkedQueue<>();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private volatile Subscription upstream;
+    private volatile Subscriber<? super R> downstream;
+    private volatile boolean upstreamDone;
+    private volatile Throwable error;
+    private volatile boolean cancelled;
+    private volatile boolean upstreamCancelled;
+    private boolean subscribed;
+
+    // only accessed by the thread which is draining
+    private final ArrayDeque<Batch> batches = new ArrayDeque<>();
+    private long outstanding;
+    private boolean terminated;
+
+    private PipelineProcessor(Pipeline<I, ?> pipeline, Function<Object, R> wrapper, ProcessorOptions options) {
+        this.pipeline = Objects.requireNonNull(pipeline);
+        this.wrapper = wrapper;
+        this.executor = options.getExecutor();
+        this.batchSize = options.getBatchSize();
+        this.parallelism = options.getParallelism();
+        this.capacity = options.getCapacity();
+    }
+
+    /**
+     * Creates a processor which emits the present results and
+     * drops the empty ones.
+     * @param pipeline The pipeline to apply
+     * @param options The batching and execution settings
+     * @param <I> The input type of the pipeline
+     * @param <O> The output type of the pipeline
+     * @return A new processor
+     */
+    @SuppressWarnings("unchecked")
+    public static <I, O> PipelineProcessor<I, O> of(Pipeline<I, O> pipeline, ProcessorOptions options) {
+        return new PipelineProcessor<>(pipeline, result -> (O) result, options);
+    }
+
+    /**
+     * Creates a processor which emits every result as a value,
+     * including the empty ones.
+     * @param pipeline The pipeline to apply
+     * @param options The batching and execution settings
+     * @param <I> The input type of the pipeline
+     * @param <O> The output type of the pipeline
+     * @return A new processor
+     */
+    @SuppressWarnings("unchecked")
+    public static <I, O> PipelineProcessor<I, Value<O>> ofValues(Pipeline<I, O> pipeline, ProcessorOptions options) {
+        return new PipelineProcessor<>(pipeline, result -> result != null ? Value.of((O) result) : Value.empty(),
+                options);
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        Objects.requireNonNull(subscription);
+
+        synchronized (this) {
+            if (upstream != null || upstreamCancelled) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+        }
+
+        drain();
+    }
+
+    @Override
+    public void onNext(I item) {
+        Objects.requireNonNull(item);
+
+        if (!upstreamDone) {
+            inputs.offer(item);
+            drain();
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        Objects.requireNonNull(throwable);
+        error = throwable;
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super R> subscriber) {
+        Objects.requireNonNull(subscriber);
+
+        boolean accepted;
+        synchronized (this) {
+            accepted = !subscribed;
+            subscribed = true;
+        }
+
+        if (accepted) {
+            subscriber.onSubscribe(new DownstreamSubscription());
+            // published only now so that nothing is signalled before onSubscribe
+            downstream = subscriber;
+            drain();
+            return;
+        }
+
+        subscriber.onSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {}
+
+            @Override
+            public void cancel() {}
+        });
+        subscriber.onError(new IllegalStateException("PipelineProcessor allows only a single subscriber"));
+    }
+
+    private final class DownstreamSubscription implements Subscription {
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Requested " + n + " items, but the number must be positive");
+                cancelUpstream();
+                upstreamDone = true;
+                // the error is due immediately, so nothing which is still pending gets emitted
+                requested.set(Long.MIN_VALUE);
+            } else {
+                requested.getAndUpdate(current -> {
+                    if (current < 0) {
+                        return current;
+                    }
+                    long updated = current + n;
+                    return updated < 0 ? Long.MAX_VALUE : updated;
+                });
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            cancelUpstream();
+            drain();
+        }
+    }
+
+    private void cancelUpstream() {
+        Subscription subscription;
+        synchronized (this) {
+            upstreamCancelled = true;
+            subscription = upstream;
+        }
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    /**
+     * Emits finished results, dispatches waiting items, requests
+     * more from upstream, and signals the end of the stream. Only
+     * one thread drains at a time; a thread which finds another
+     * one draining leaves a note for it to go around once more.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+        do {
+            Subscriber<? super R> subscriber = downstream;
+            if (subscriber != null && !terminated) {
+                if (cancelled) {
+                    terminated = true;
+                    inputs.clear();
+                    batches.clear();
+                } else if (requested.get() < 0) {
+                    fail(subscriber);
+                } else {
+                    emit(subscriber);
+                    dispatch();
+                    // a rejected batch fails the stream right away
+                    if (requested.get() < 0) {
+                        fail(subscriber);
+                    } else {
+                        requestMore();
+                        complete(subscriber);
+                    }
+                }
+            }
+
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void fail(Subscriber<? super R> subscriber) {
+        terminated = true;
+        inputs.clear();
+        batches.clear();
+        subscriber.onError(error);
+    }
+
+    private void emit(Subscriber<? super R> subscriber) {
+        long demand = requested.get();
+        long emitted = 0;
+        Batch batch;
+
+        while ((batch = batches.peek()) != null && batch.done) {
+            while (batch.position < batch.results.length) {
+                Object result = batch.results[batch.position];
+                R item = wrapper.apply(result);
+
+                if (item != null) {
+                    if (emitted == demand) {
+                        break;
+                    }
+                    subscriber.onNext(item);
+                    emitted++;
+                }
+
+                batch.results[batch.position++] = null;
+                outstanding--;
+            }
+
+            if (batch.position < batch.results.length) {
+                break;
+            }
+            batches.poll();
+        }
+
+        if (emitted != 0 && demand != Long.MAX_VALUE) {
+            requested.addAndGet(-emitted);
+        }
+    }
+
+    private void dispatch() {
+        int running = 0;
+        for (Batch batch : batches) {
+            if (!batch.done) {
+                running++;
+            }
+        }
+
+        while (running < parallelism && !inputs.isEmpty()) {
+            Object[] items = new Object[batchSize];
+            int count = 0;
+            I item;
+            while (count < batchSize && (item = inputs.poll()) != null) {
+                items[count++] = item;
+            }
+
+            Batch batch = new Batch(count == batchSize ? items : Arrays.copyOf(items, count));
+            batches.offer(batch);
+            running++;
+
+            try {
+                executor.execute(batch);
+            } catch (RejectedExecutionException ex) {
+                error = ex;
+                requested.set(Long.MIN_VALUE);
+                cancelUpstream();
+                return;
+            }
+        }
+    }
+
+    private void requestMore() {
+        Subscription subscription = upstream;
+        long missing = capacity - outstanding;
+
+        if (subscription != null && !upstreamDone && missing >= Math.min(batchSize, capacity)) {
+            outstanding += missing;
+            subscription.request(missing);
+        }
+    }
+
+    private void complete(Subscriber<? super R> subscriber) {
+        if (upstreamDone && inputs.isEmpty() && batches.isEmpty()) {
+            terminated = true;
+            if (error != null) {
+                subscriber.onError(error);
+            } else {
+                subscriber.onComplete();
+            }
+        }
+    }
+
+    private final class Batch implements Runnable {
+        final Object[] results;
+        int position;
+        volatile boolean done;
+
+        Batch(Object[] items) {
+            this.results = items;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void run() {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = pipeline.applyOrNull((I) results[i]);
+            }
+            done = true;
+            drain();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package valuestreams.pipeline;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+/**
+ * Settings for a PipelineProcessor. Options are immutable; every
+ * setter returns a new instance.
+ * {@code ProcessorOptions.defaults().batchSize(256).parallelism(4).executor(pool)}
+ */
+public final class ProcessorOptions {
+    private static final int DEFAULT_BATCH_SIZE = 64;
+    private static final ProcessorOptions DEFAULTS = new ProcessorOptions(DEFAULT_BATCH_SIZE, 1, null);
+
+    private final int batchSize;
+    private final int parallelism;
+    private final Executor executor;
+
+    private ProcessorOptions(int batchSize, int parallelism, Executor executor) {
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.executor = executor;
+    }
+
+    /**
+     * @return Options which process up to 64 items per batch, one
+     * batch at a time, on the default executor of applyAsync().
+     */
+    public static ProcessorOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * @param batchSize The maximum number of items processed by
+     *                  a single task. Smaller batches are formed
+     *                  when fewer items are waiting.
+     * @return New options using the given batch size
+     */
+    public ProcessorOptions batchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        return new ProcessorOptions(batchSize, parallelism, executor);
+    }
+
+    /**
+     * @param parallelism The maximum number of batches processed
+     *                    at the same time. Results are emitted in
+     *                    the order of the input regardless.
+     * @return New options using the given parallelism
+     */
+    public ProcessorOptions parallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        return new ProcessorOptions(batchSize, parallelism, executor);
+    }
+
+    /**
+     * @param executor The executor to process batches on
+     * @return New options using the given executor
+     */
+    public ProcessorOptions executor(Executor executor) {
+        return new ProcessorOptions(batchSize, parallelism, Objects.requireNonNull(executor));
+    }
+
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return The number of items which may be requested from
+     * upstream but not yet emitted downstream.
+     */
+    int getCapacity() {
+        return batchSize * parallelism * 2;
+    }
+
+    Executor getExecutor() {
+        return executor != null ? executor : DefaultExecutor.get();
+    }
+}
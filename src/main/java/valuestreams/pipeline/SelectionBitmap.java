@@ -0,0 +1,546 @@
+package valuestreams.pipeline;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A compressed set of row indexes, such as the rows of a dataset
+ * which passed a pipeline. Indexes are grouped in chunks of 2^16
+ * by their upper 16 bits, and every chunk which holds any index
+ * is stored in the form which suits its density: a sorted array
+ * of the lower 16 bits when it holds at most 4096 indexes, or a
+ * plain bitmap of 2^16 bits otherwise. A sparse selection takes
+ * two bytes per index and a dense one at most a bit per row.
+ * Selections of different pipelines over the same rows can be
+ * combined with and() and or() without evaluating the rows again.
+ * Bitmaps are immutable and can be shared between threads.
+ * {@code
+ * SelectionBitmap valid = validation.select(rows);
+ * SelectionBitmap flagged = valid.and(fraudRules.select(rows));
+ * }
+ */
+public final class SelectionBitmap {
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = 1 << 10;
+    private static final SelectionBitmap EMPTY = new SelectionBitmap(new int[0], new Container[0], 0);
+
+    private final int[] keys;
+    private final Container[] containers;
+    private final int count;
+
+    private SelectionBitmap(int[] keys, Container[] containers, int count) {
+        this.keys = keys;
+        this.containers = containers;
+        this.count = count;
+    }
+
+    /**
+     * @return The bitmap which holds no index
+     */
+    public static SelectionBitmap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param indexes Non-negative indexes, in any order
+     * @return A bitmap holding the given indexes
+     */
+    public static SelectionBitmap of(int... indexes) {
+        int[] sorted = indexes.clone();
+        Arrays.sort(sorted);
+        Builder builder = builder();
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                builder.add(sorted[i]);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param words A bitmap in which bit i % 64 of word i / 64 is
+     *              set for every index i to hold, like the masks
+     *              of the range kernels
+     * @return A compressed bitmap holding the same indexes
+     */
+    public static SelectionBitmap fromMask(long[] words) {
+        Builder builder = builder();
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            while (word != 0) {
+                builder.add((w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return A builder to which indexes are added in ascending
+     * order
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builds a bitmap from indexes which are added in ascending
+     * order, switching a chunk from an array to a bitmap once it
+     * gets dense. A builder isn't thread-safe.
+     */
+    public static final class Builder {
+        private int[] keys = new int[4];
+        private Container[] containers = new Container[4];
+        private int size;
+        private int count;
+        private int last = -1;
+        private boolean built;
+
+        // the chunk being filled, held as an array until it gets dense
+        private int key = -1;
+        private final char[] lows = new char[ARRAY_LIMIT];
+        private int lowCount;
+        private long[] words;
+
+        private Builder() {
+        }
+
+        /**
+         * @param index A non-negative index, greater than the
+         *              ones added before
+         * @return The same builder
+         */
+        public Builder add(int index) {
+            if (built) {
+                throw new IllegalStateException("The bitmap was already built");
+            }
+            if (index <= last) {
+                throw new IllegalArgumentException("Index " + index + " isn't greater than " + last);
+            }
+            last = index;
+
+            if (index >>> 16 != key) {
+                flush();
+                key = index >>> 16;
+            }
+
+            char low = (char) index;
+            if (words != null) {
+                words[low >>> 6] |= 1L << low;
+            } else if (lowCount < ARRAY_LIMIT) {
+                lows[lowCount] = low;
+            } else {
+                words = new long[BITMAP_WORDS];
+                for (int i = 0; i < lowCount; i++) {
+                    words[lows[i] >>> 6] |= 1L << lows[i];
+                }
+                words[low >>> 6] |= 1L << low;
+            }
+            lowCount++;
+            count++;
+            return this;
+        }
+
+        private void flush() {
+            if (lowCount == 0) {
+                return;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                containers = Arrays.copyOf(containers, size * 2);
+            }
+
+            keys[size] = key;
+            containers[size++] = words != null
+                    ? new BitmapContainer(words, lowCount)
+                    : new ArrayContainer(Arrays.copyOf(lows, lowCount), lowCount);
+            words = null;
+            lowCount = 0;
+        }
+
+        /**
+         * @return A bitmap of the added indexes, after which the
+         * builder can't be used anymore
+         */
+        public SelectionBitmap build() {
+            flush();
+            built = true;
+            return new SelectionBitmap(Arrays.copyOf(keys, size), Arrays.copyOf(containers, size), count);
+        }
+    }
+
+    /**
+     * @return The number of indexes in the bitmap
+     */
+    public int cardinality() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public boolean contains(int index) {
+        if (index < 0) {
+            return false;
+        }
+        int position = Arrays.binarySearch(keys, index >>> 16);
+        return position >= 0 && containers[position].contains((char) index);
+    }
+
+    /**
+     * @param other Another bitmap
+     * @return A bitmap of the indexes which are in both bitmaps
+     */
+    public SelectionBitmap and(SelectionBitmap other) {
+        int[] resultKeys = new int[Math.min(keys.length, other.keys.length)];
+        Container[] results = new Container[resultKeys.length];
+        int size = 0;
+        int total = 0;
+
+        for (int i = 0, j = 0; i < keys.length && j < other.keys.length; ) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container result = containers[i].and(other.containers[j]);
+                if (result.cardinality() > 0) {
+                    resultKeys[size] = keys[i];
+                    results[size++] = result;
+                    total += result.cardinality();
+                }
+                i++;
+                j++;
+            }
+        }
+
+        return new SelectionBitmap(Arrays.copyOf(resultKeys, size), Arrays.copyOf(results, size), total);
+    }
+
+    /**
+     * @param other Another bitmap
+     * @return A bitmap of the indexes which are in either bitmap
+     */
+    public SelectionBitmap or(SelectionBitmap other) {
+        int[] resultKeys = new int[keys.length + other.keys.length];
+        Container[] results = new Container[resultKeys.length];
+        int size = 0;
+        int total = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < keys.length || j < other.keys.length) {
+            Container result;
+            if (j == other.keys.length || (i < keys.length && keys[i] < other.keys[j])) {
+                resultKeys[size] = keys[i];
+                result = containers[i++];
+            } else if (i == keys.length || keys[i] > other.keys[j]) {
+                resultKeys[size] = other.keys[j];
+                result = other.containers[j++];
+            } else {
+                resultKeys[size] = keys[i];
+                result = containers[i++].or(other.containers[j++]);
+            }
+            results[size++] = result;
+            total += result.cardinality();
+        }
+
+        return new SelectionBitmap(Arrays.copyOf(resultKeys, size), Arrays.copyOf(results, size), total);
+    }
+
+    /**
+     * Passes every index to an action, in ascending order.
+     * @param action The action to perform on each index
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    /**
+     * @return The indexes in ascending order
+     */
+    public int[] toArray() {
+        int[] indexes = new int[count];
+        int[] position = new int[1];
+        forEach(index -> indexes[position[0]++] = index);
+        return indexes;
+    }
+
+    /**
+     * @return An estimate of the memory used by the indexes, in
+     * bytes, leaving out object headers
+     */
+    public long sizeInBytes() {
+        long bytes = keys.length * 4L;
+        for (Container container : containers) {
+            bytes += container.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof SelectionBitmap)) {
+            return false;
+        }
+
+        SelectionBitmap bitmap = (SelectionBitmap) other;
+        if (count != bitmap.count || !Arrays.equals(keys, bitmap.keys)) {
+            return false;
+        }
+        for (int i = 0; i < containers.length; i++) {
+            // both were normalized by their cardinality, so equal sets have the same form
+            if (!containers[i].sameAs(bitmap.containers[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int[] hash = {Arrays.hashCode(keys)};
+        forEach(index -> hash[0] = hash[0] * 31 + index);
+        return hash[0];
+    }
+
+    @Override
+    public String toString() {
+        return "SelectionBitmap[cardinality=" + count + ", chunks=" + keys.length + "]";
+    }
+
+    private abstract static class Container {
+        abstract int cardinality();
+
+        abstract boolean contains(char low);
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract void forEach(int base, IntConsumer action);
+
+        abstract long sizeInBytes();
+
+        abstract boolean sameAs(Container other);
+    }
+
+    private static final class ArrayContainer extends Container {
+        private final char[] values;
+        private final int cardinality;
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        BitmapContainer toBitmap() {
+            long[] words = new long[BITMAP_WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            return new BitmapContainer(words, cardinality);
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[Math.min(cardinality, other.cardinality())];
+            int size = 0;
+
+            if (other instanceof BitmapContainer) {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        result[size++] = values[i];
+                    }
+                }
+            } else {
+                ArrayContainer array = (ArrayContainer) other;
+                for (int i = 0, j = 0; i < cardinality && j < array.cardinality; ) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[size++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            }
+
+            return new ArrayContainer(size == result.length ? result : Arrays.copyOf(result, size), size);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+
+            ArrayContainer array = (ArrayContainer) other;
+            char[] result = new char[cardinality + array.cardinality];
+            int size = 0;
+            int i = 0;
+            int j = 0;
+
+            while (i < cardinality && j < array.cardinality) {
+                if (values[i] < array.values[j]) {
+                    result[size++] = values[i++];
+                } else if (values[i] > array.values[j]) {
+                    result[size++] = array.values[j++];
+                } else {
+                    result[size++] = values[i++];
+                    j++;
+                }
+            }
+            while (i < cardinality) {
+                result[size++] = values[i++];
+            }
+            while (j < array.cardinality) {
+                result[size++] = array.values[j++];
+            }
+
+            ArrayContainer merged = new ArrayContainer(result, size);
+            return size > ARRAY_LIMIT ? merged.toBitmap() : new ArrayContainer(Arrays.copyOf(result, size), size);
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for (int i = 0; i < cardinality; i++) {
+                action.accept(base | values[i]);
+            }
+        }
+
+        @Override
+        long sizeInBytes() {
+            return values.length * 2L;
+        }
+
+        @Override
+        boolean sameAs(Container other) {
+            if (!(other instanceof ArrayContainer) || other.cardinality() != cardinality) {
+                return false;
+            }
+            char[] otherValues = ((ArrayContainer) other).values;
+            for (int i = 0; i < cardinality; i++) {
+                if (values[i] != otherValues[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private final int cardinality;
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[BITMAP_WORDS];
+            int total = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                result[i] = words[i] & otherWords[i];
+                total += Long.bitCount(result[i]);
+            }
+
+            return total > ARRAY_LIMIT ? new BitmapContainer(result, total) : toArray(result, total);
+        }
+
+        private static ArrayContainer toArray(long[] words, int cardinality) {
+            char[] values = new char[cardinality];
+            int size = 0;
+            for (int w = 0; w < words.length; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    values[size++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, cardinality);
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] result = words.clone();
+            int total;
+
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                total = cardinality;
+                for (int i = 0; i < array.cardinality; i++) {
+                    char low = array.values[i];
+                    long bit = 1L << low;
+                    total += (result[low >>> 6] & bit) == 0 ? 1 : 0;
+                    result[low >>> 6] |= bit;
+                }
+            } else {
+                long[] otherWords = ((BitmapContainer) other).words;
+                total = 0;
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    result[i] |= otherWords[i];
+                    total += Long.bitCount(result[i]);
+                }
+            }
+
+            return new BitmapContainer(result, total);
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    action.accept(base + (w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        long sizeInBytes() {
+            return BITMAP_WORDS * 8L;
+        }
+
+        @Override
+        boolean sameAs(Container other) {
+            return other instanceof BitmapContainer && Arrays.equals(words, ((BitmapContainer) other).words);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package valuestreams.pipeline;
+
+import valuestreams.operations.OperationType;
+
+/**
+ * The numbers recorded for one operation of an instrumented
+ * pipeline at the time of the snapshot. Snapshots are immutable.
+ * For filters a null output is a rejection; for other operations
+ * it usually means the value had nothing to map to. Exceptions
+ * aren't counted as null outputs.
+ */
+public final class StageSnapshot {
+    private final int index;
+    private final OperationType type;
+    private final long invocations;
+    private final long nullOutputs;
+    private final long exceptions;
+    private final Exception lastException;
+    private final long sampledInvocations;
+    private final long sampledNanos;
+    private final long[] latencyHistogram;
+
+    StageSnapshot(int index, OperationType type, long invocations, long nullOutputs, long exceptions,
+                  Exception lastException, long sampledInvocations, long sampledNanos, long[] latencyHistogram) {
+        this.index = index;
+        this.type = type;
+        this.invocations = invocations;
+        this.nullOutputs = nullOutputs;
+        this.exceptions = exceptions;
+        this.lastException = lastException;
+        this.sampledInvocations = sampledInvocations;
+        this.sampledNanos = sampledNanos;
+        this.latencyHistogram = latencyHistogram;
+    }
+
+    /**
+     * @return The position of the operation in the pipeline,
+     * counting from the input operation at 0.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public OperationType getType() {
+        return type;
+    }
+
+    public long getInvocations() {
+        return invocations;
+    }
+
+    /**
+     * @return The number of values for which the operation
+     * returned null without throwing.
+     */
+    public long getNullOutputs() {
+        return nullOutputs;
+    }
+
+    /**
+     * @return The number of values rejected by the operation,
+     * which is the number of null outputs for filters and zero
+     * for other operations.
+     */
+    public long getRejections() {
+        return type == OperationType.FILTER ? nullOutputs : 0;
+    }
+
+    /**
+     * @return The number of exceptions thrown by the operation,
+     * including the ones swallowed by checked operations.
+     */
+    public long getExceptions() {
+        return exceptions;
+    }
+
+    /**
+     * @return The most recent exception thrown by the operation,
+     * or null if there was none.
+     */
+    public Exception getLastException() {
+        return lastException;
+    }
+
+    /**
+     * @return The number of invocations whose latency was
+     * measured, which depends on the sampling period.
+     */
+    public long getSampledInvocations() {
+        return sampledInvocations;
+    }
+
+    public double getMeanLatencyNanos() {
+        return sampledInvocations == 0 ? 0.0 : (double) sampledNanos / sampledInvocations;
+    }
+
+    /**
+     * Gets the latency histogram, where bucket 0 counts the
+     * invocations which took no measurable time and bucket b
+     * counts the ones which took between 2^(b-1) and 2^b - 1
+     * nanoseconds.
+     * @return A copy of the histogram
+     */
+    public long[] getLatencyHistogram() {
+        return latencyHistogram.clone();
+    }
+
+    /**
+     * Estimates a latency percentile from the histogram. The
+     * estimate is the upper bound of the bucket in which the
+     * percentile falls, so it's accurate to within a factor
+     * of two.
+     * @param percentile A percentile between 0 and 100
+     * @return The estimated latency in nanoseconds, or 0 if no
+     * latency was measured.
+     */
+    public long getLatencyPercentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        if (sampledInvocations == 0) {
+            return 0;
+        }
+
+        long total = 0;
+        for (long count : latencyHistogram) {
+            total += count;
+        }
+
+        long rank = (long) Math.ceil(percentile / 100.0 * total);
+        long seen = 0;
+        for (int bucket = 0; bucket < latencyHistogram.length; bucket++) {
+            seen += latencyHistogram[bucket];
+            if (seen >= rank && seen > 0) {
+                return bucket == 0 ? 0 : bucket == 63 ? Long.MAX_VALUE : (1L << bucket) - 1;
+            }
+        }
+
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "StageSnapshot[index=" + index + ", type=" + type + ", invocations=" + invocations
+                + ", nullOutputs=" + nullOutputs + ", exceptions=" + exceptions
+                + ", meanLatencyNanos=" + String.format("%.1f", getMeanLatencyNanos()) + "]";
+    }
+}
@@ -0,0 +1,253 @@
+package valuestreams.rules;
+
+import java.util.function.DoublePredicate;
+
+/**
+ * A closed range of doubles built from the same checks NumericalValue
+ * offers, which validates whole arrays at once. Every check narrows
+ * the range, so a chain of checks costs a single range test per
+ * value, and a contradictory chain yields an empty range. The bulk
+ * methods run loops without branches on the values, which the JIT
+ * can unroll and vectorize. Ranges are immutable and can be shared
+ * between threads.
+ * {@code
+ * DoubleRange latitude = DoubleRange.all().betweenInclusive(-90.0, 90.0);
+ * int valid = latitude.count(latitudes);
+ * long[] selected = latitude.mask(latitudes);
+ * }
+ */
+public final class DoubleRange implements DoublePredicate {
+    private static final DoubleRange ALL = new DoubleRange(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    private static final DoubleRange EMPTY = new DoubleRange(1, 0);
+
+    private final double min;
+    private final double max;
+
+    private DoubleRange(double min, double max) {
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * @return The range of every double, to be narrowed by checks
+     */
+    public static DoubleRange all() {
+        return ALL;
+    }
+
+    /**
+     * @return The range which no double is in
+     */
+    public static DoubleRange none() {
+        return EMPTY;
+    }
+
+    private DoubleRange narrow(double lowerLimit, double upperLimit) {
+        if (Double.isNaN(lowerLimit) || Double.isNaN(upperLimit)) {
+            throw new IllegalArgumentException("NaN can't be a limit");
+        }
+
+        double newMin = Math.max(min, lowerLimit);
+        double newMax = Math.min(max, upperLimit);
+
+        if (newMin > newMax) {
+            return EMPTY;
+        }
+        if (newMin == min && newMax == max) {
+            return this;
+        }
+        return new DoubleRange(newMin, newMax);
+    }
+
+    /**
+     * Narrows the range to a single value. Note that -0.0 and 0.0
+     * are the same value here, like with ==.
+     * @param other The value to allow
+     * @return The narrowed range
+     */
+    public DoubleRange isEqualTo(double other) {
+        return narrow(other, other);
+    }
+
+    // exclusive limits become the adjacent double, since no double lies in between,
+    // except for infinite limits which have no double beyond them
+
+    public DoubleRange lessThan(double upperLimit) {
+        if (upperLimit == Double.NEGATIVE_INFINITY) {
+            return EMPTY;
+        }
+        return narrow(Double.NEGATIVE_INFINITY, Math.nextDown(upperLimit));
+    }
+
+    public DoubleRange lessThanOrEquals(double upperLimit) {
+        return narrow(Double.NEGATIVE_INFINITY, upperLimit);
+    }
+
+    public DoubleRange greaterThan(double lowerLimit) {
+        if (lowerLimit == Double.POSITIVE_INFINITY) {
+            return EMPTY;
+        }
+        return narrow(Math.nextUp(lowerLimit), Double.POSITIVE_INFINITY);
+    }
+
+    public DoubleRange greaterThanOrEquals(double lowerLimit) {
+        return narrow(lowerLimit, Double.POSITIVE_INFINITY);
+    }
+
+    public DoubleRange betweenInclusive(double lowerLimit, double upperLimit) {
+        return narrow(lowerLimit, upperLimit);
+    }
+
+    public DoubleRange betweenExclusive(double lowerLimit, double upperLimit) {
+        if (lowerLimit == Double.POSITIVE_INFINITY || upperLimit == Double.NEGATIVE_INFINITY) {
+            return EMPTY;
+        }
+        return narrow(Math.nextUp(lowerLimit), Math.nextDown(upperLimit));
+    }
+
+    /**
+     * @param other Another range
+     * @return The range of the doubles which are in both ranges
+     */
+    public DoubleRange and(DoubleRange other) {
+        return other.isEmpty() ? EMPTY : narrow(other.min, other.max);
+    }
+
+    /**
+     * @return True if the checks contradict each other, so that
+     * no double passes them
+     */
+    public boolean isEmpty() {
+        return min > max;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    @Override
+    public boolean test(double value) {
+        return value >= min && value <= max;
+    }
+
+    /**
+     * @return 1 if the value is in the range, 0 otherwise. The
+     * non-short-circuit comparison compiles to flag moves rather
+     * than jumps, and NaN fails both comparisons.
+     */
+    private static int pass(double value, double min, double max) {
+        return value >= min & value <= max ? 1 : 0;
+    }
+
+    /**
+     * @param values The values to check
+     * @return The number of values in the range
+     */
+    public int count(double[] values) {
+        return count(values, 0, values.length);
+    }
+
+    /**
+     * @param values The values to check
+     * @param from The index of the first value to check
+     * @param to The index after the last value to check
+     * @return The number of values in the range
+     */
+    public int count(double[] values, int from, int to) {
+        Ranges.checkRange(values.length, from, to);
+        if (isEmpty()) {
+            return 0;
+        }
+
+        double min = this.min;
+        double max = this.max;
+        int count = 0;
+
+        for (int i = from; i < to; i++) {
+            count += pass(values[i], min, max);
+        }
+
+        return count;
+    }
+
+    /**
+     * @param values The values to check
+     * @return A bitmap in which bit i % 64 of word i / 64 is set
+     * if the value at index i is in the range
+     */
+    public long[] mask(double[] values) {
+        return mask(values, 0, values.length);
+    }
+
+    /**
+     * @param values The values to check
+     * @param from The index of the first value to check
+     * @param to The index after the last value to check
+     * @return A bitmap with bit i set if the value at index
+     * from + i is in the range
+     */
+    public long[] mask(double[] values, int from, int to) {
+        Ranges.checkRange(values.length, from, to);
+        long[] mask = new long[Ranges.words(to - from)];
+        if (isEmpty()) {
+            return mask;
+        }
+
+        double min = this.min;
+        double max = this.max;
+
+        for (int word = 0; word < mask.length; word++) {
+            int start = from + (word << 6);
+            int end = Math.min(start + 64, to);
+            long bits = 0;
+
+            for (int i = start; i < end; i++) {
+                bits |= (long) pass(values[i], min, max) << (i - start);
+            }
+
+            mask[word] = bits;
+        }
+
+        return mask;
+    }
+
+    /**
+     * Writes the indexes of the values in the range to a selection
+     * vector.
+     * @param values The values to check
+     * @param from The index of the first value to check
+     * @param to The index after the last value to check
+     * @param indexes Receives the indexes of the values in the
+     *                range, in order; it must have room for
+     *                to - from indexes
+     * @return The number of indexes written
+     */
+    public int select(double[] values, int from, int to, int[] indexes) {
+        Ranges.checkRange(values.length, from, to);
+        Ranges.checkCapacity(indexes.length, to - from);
+        if (isEmpty()) {
+            return 0;
+        }
+
+        double min = this.min;
+        double max = this.max;
+        int count = 0;
+
+        for (int i = from; i < to; i++) {
+            // always written, but only kept when the value passes
+            indexes[count] = i;
+            count += pass(values[i], min, max);
+        }
+
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return isEmpty() ? "DoubleRange[]" : "DoubleRange[" + min + ", " + max + "]";
+    }
+}
@@ -0,0 +1,158 @@
+package valuestreams.rules;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The number of failures of every rule of a RuleSet over many
+ * values, along with the number of values and of the ones which
+ * failed any rule. Counts are added from failure bitmasks and
+ * aren't thread-safe; counts gathered on different threads are
+ * combined with merge().
+ * {@code
+ * FailureCounts counts = rules.countFailures(records.parallelStream());
+ * counts.toMap().forEach((rule, failures) -> System.out.println(rule + ": " + failures));
+ * }
+ */
+public final class FailureCounts {
+    private final String[] names;
+    private final long[] counts;
+    private long records;
+    private long failedRecords;
+    private long[] scratch;
+
+    FailureCounts(String[] names) {
+        this.names = names;
+        this.counts = new long[names.length];
+    }
+
+    /**
+     * Adds the failures of a value.
+     * @param failures The bitmask of the failed rules, for sets of
+     *                 up to 64 rules
+     */
+    public void add(long failures) {
+        records++;
+        if (failures != 0) {
+            failedRecords++;
+            addWord(0, failures);
+        }
+    }
+
+    /**
+     * Adds the failures of a value.
+     * @param failures The bitmask of the failed rules
+     */
+    public void add(long[] failures) {
+        records++;
+        boolean failed = false;
+        for (int w = 0; w < failures.length; w++) {
+            if (failures[w] != 0) {
+                failed = true;
+                addWord(w, failures[w]);
+            }
+        }
+        if (failed) {
+            failedRecords++;
+        }
+    }
+
+    private void addWord(int w, long word) {
+        while (word != 0) {
+            counts[(w << 6) + Long.numberOfTrailingZeros(word)]++;
+            word &= word - 1;
+        }
+    }
+
+    /**
+     * Adds other counts of the same rules to these ones.
+     * @param other The counts to add
+     * @return These counts
+     */
+    public FailureCounts merge(FailureCounts other) {
+        if (!Arrays.equals(names, other.names)) {
+            throw new IllegalArgumentException("The counts are of different rules");
+        }
+
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        records += other.records;
+        failedRecords += other.failedRecords;
+        return this;
+    }
+
+    /**
+     * @return A bitmask buffer reused for sets of more than 64 rules
+     */
+    long[] scratch(int words) {
+        if (scratch == null) {
+            scratch = new long[words];
+        }
+        return scratch;
+    }
+
+    /**
+     * @return The number of values counted
+     */
+    public long records() {
+        return records;
+    }
+
+    /**
+     * @return The number of values which failed at least one rule
+     */
+    public long failedRecords() {
+        return failedRecords;
+    }
+
+    public long passedRecords() {
+        return records - failedRecords;
+    }
+
+    /**
+     * @param rule The index of a rule
+     * @return The number of values which failed the rule
+     */
+    public long failures(int rule) {
+        return counts[rule];
+    }
+
+    /**
+     * @param name The name of a rule
+     * @return The number of values which failed the rule
+     */
+    public long failures(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return counts[i];
+            }
+        }
+        throw new NoSuchElementException("No rule named " + name);
+    }
+
+    public List<String> names() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    /**
+     * @return The failures of every rule by its name, in the order
+     * of the rules
+     */
+    public Map<String, Long> toMap() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            map.put(names[i], counts[i]);
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "FailureCounts[records=" + records + ", failed=" + failedRecords + ", " + toMap() + "]";
+    }
+}
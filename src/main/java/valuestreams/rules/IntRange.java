@@ -0,0 +1,233 @@
+package valuestreams.rules;
+
+import java.util.function.IntPredicate;
+
+/**
+ * A closed range of ints built from the same checks NumericalValue
+ * offers, which validates whole arrays at once. Every check narrows
+ * the range, so a chain of checks costs a single range test per
+ * value, and a contradictory chain yields an empty range. The bulk
+ * methods run loops without branches on the values, which the JIT
+ * can unroll and vectorize. Ranges are immutable and can be shared
+ * between threads.
+ * {@code
+ * IntRange adult = IntRange.all().greaterThanOrEquals(18).lessThan(130);
+ * int adults = adult.count(ages);
+ * long[] selected = adult.mask(ages);
+ * }
+ */
+public final class IntRange implements IntPredicate {
+    private static final IntRange ALL = new IntRange(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    private static final IntRange EMPTY = new IntRange(0, -1);
+
+    private final int min;
+    private final int max;
+
+    private IntRange(int min, int max) {
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * @return The range of every int, to be narrowed by checks
+     */
+    public static IntRange all() {
+        return ALL;
+    }
+
+    /**
+     * @return The range which no int is in
+     */
+    public static IntRange none() {
+        return EMPTY;
+    }
+
+    private IntRange narrow(long lowerLimit, long upperLimit) {
+        long newMin = Math.max(min, lowerLimit);
+        long newMax = Math.min(max, upperLimit);
+
+        if (newMin > newMax) {
+            return EMPTY;
+        }
+        if (newMin == min && newMax == max) {
+            return this;
+        }
+        return new IntRange((int) newMin, (int) newMax);
+    }
+
+    public IntRange isEqualTo(int other) {
+        return narrow(other, other);
+    }
+
+    public IntRange lessThan(int upperLimit) {
+        return narrow(Long.MIN_VALUE, upperLimit - 1L);
+    }
+
+    public IntRange lessThanOrEquals(int upperLimit) {
+        return narrow(Long.MIN_VALUE, upperLimit);
+    }
+
+    public IntRange greaterThan(int lowerLimit) {
+        return narrow(lowerLimit + 1L, Long.MAX_VALUE);
+    }
+
+    public IntRange greaterThanOrEquals(int lowerLimit) {
+        return narrow(lowerLimit, Long.MAX_VALUE);
+    }
+
+    public IntRange betweenInclusive(int lowerLimit, int upperLimit) {
+        return narrow(lowerLimit, upperLimit);
+    }
+
+    public IntRange betweenExclusive(int lowerLimit, int upperLimit) {
+        return narrow(lowerLimit + 1L, upperLimit - 1L);
+    }
+
+    /**
+     * @param other Another range
+     * @return The range of the ints which are in both ranges
+     */
+    public IntRange and(IntRange other) {
+        return other.isEmpty() ? EMPTY : narrow(other.min, other.max);
+    }
+
+    /**
+     * @return True if the checks contradict each other, so that
+     * no int passes them
+     */
+    public boolean isEmpty() {
+        return min > max;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    @Override
+    public boolean test(int value) {
+        return value >= min && value <= max;
+    }
+
+    /**
+     * @return 1 if the value is in the range, 0 otherwise. The
+     * offset from the minimum and the distance from there to the
+     * maximum are both non-negative only within the range, so the
+     * sign bit of their union tells without a branch.
+     */
+    private static int pass(int value, int min, long span) {
+        long offset = (long) value - min;
+        return 1 - (int) ((offset | (span - offset)) >>> 63);
+    }
+
+    /**
+     * @param values The values to check
+     * @return The number of values in the range
+     */
+    public int count(int[] values) {
+        return count(values, 0, values.length);
+    }
+
+    /**
+     * @param values The values to check
+     * @param from The index of the first value to check
+     * @param to The index after the last value to check
+     * @return The number of values in the range
+     */
+    public int count(int[] values, int from, int to) {
+        Ranges.checkRange(values.length, from, to);
+        if (isEmpty()) {
+            return 0;
+        }
+
+        int min = this.min;
+        long span = (long) max - min;
+        int count = 0;
+
+        for (int i = from; i < to; i++) {
+            count += pass(values[i], min, span);
+        }
+
+        return count;
+    }
+
+    /**
+     * @param values The values to check
+     * @return A bitmap in which bit i % 64 of word i / 64 is set
+     * if the value at index i is in the range
+     */
+    public long[] mask(int[] values) {
+        return mask(values, 0, values.length);
+    }
+
+    /**
+     * @param values The values to check
+     * @param from The index of the first value to check
+     * @param to The index after the last value to check
+     * @return A bitmap with bit i set if the value at index
+     * from + i is in the range
+     */
+    public long[] mask(int[] values, int from, int to) {
+        Ranges.checkRange(values.length, from, to);
+        long[] mask = new long[Ranges.words(to - from)];
+        if (isEmpty()) {
+            return mask;
+        }
+
+        int min = this.min;
+        long span = (long) max - min;
+
+        for (int word = 0; word < mask.length; word++) {
+            int start = from + (word << 6);
+            int end = Math.min(start + 64, to);
+            long bits = 0;
+
+            for (int i = start; i < end; i++) {
+                bits |= (long) pass(values[i], min, span) << (i - start);
+            }
+
+            mask[word] = bits;
+        }
+
+        return mask;
+    }
+
+    /**
+     * Writes the indexes of the values in the range to a selection
+     * vector.
+     * @param values The values to check
+     * @param from The index of the first value to check
+     * @param to The index after the last value to check
+     * @param indexes Receives the indexes of the values in the
+     *                range, in order; it must have room for
+     *                to - from indexes
+     * @return The number of indexes written
+     */
+    public int select(int[] values, int from, int to, int[] indexes) {
+        Ranges.checkRange(values.length, from, to);
+        Ranges.checkCapacity(indexes.length, to - from);
+        if (isEmpty()) {
+            return 0;
+        }
+
+        int min = this.min;
+        long span = (long) max - min;
+        int count = 0;
+
+        for (int i = from; i < to; i++) {
+            // always written, but only kept when the value passes
+            indexes[count] = i;
+            count += pass(values[i], min, span);
+        }
+
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return isEmpty() ? "IntRange[]" : "IntRange[" + min + ", " + max + "]";
+    }
+}
@@ -0,0 +1,234 @@
+package valuestreams.rules;
+
+import java.util.function.LongPredicate;
+
+/**
+ * A closed range of longs built from the same checks NumericalValue
+ * offers, which validates whole arrays at once. Every check narrows
+ * the range, so a chain of checks costs a single range test per
+ * value, and a contradictory chain yields an empty range. The bulk
+ * methods run loops without branches on the values, which the JIT
+ * can unroll and vectorize. Ranges are immutable and can be shared
+ * between threads.
+ * {@code
+ * LongRange lastWeek = LongRange.all().greaterThanOrEquals(weekAgo).lessThan(now);
+ * int recent = lastWeek.count(timestamps);
+ * long[] selected = lastWeek.mask(timestamps);
+ * }
+ */
+public final class LongRange implements LongPredicate {
+    private static final LongRange ALL = new LongRange(Long.MIN_VALUE, Long.MAX_VALUE);
+    private static final LongRange EMPTY = new LongRange(0, -1);
+
+    private final long min;
+    private final long max;
+
+    private LongRange(long min, long max) {
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * @return The range of every long, to be narrowed by checks
+     */
+    public static LongRange all() {
+        return ALL;
+    }
+
+    /**
+     * @return The range which no long is in
+     */
+    public static LongRange none() {
+        return EMPTY;
+    }
+
+    private LongRange narrow(long lowerLimit, long upperLimit) {
+        long newMin = Math.max(min, lowerLimit);
+        long newMax = Math.min(max, upperLimit);
+
+        if (newMin > newMax) {
+            return EMPTY;
+        }
+        if (newMin == min && newMax == max) {
+            return this;
+        }
+        return new LongRange(newMin, newMax);
+    }
+
+    public LongRange isEqualTo(long other) {
+        return narrow(other, other);
+    }
+
+    public LongRange lessThan(long upperLimit) {
+        return upperLimit == Long.MIN_VALUE ? EMPTY : narrow(Long.MIN_VALUE, upperLimit - 1);
+    }
+
+    public LongRange lessThanOrEquals(long upperLimit) {
+        return narrow(Long.MIN_VALUE, upperLimit);
+    }
+
+    public LongRange greaterThan(long lowerLimit) {
+        return lowerLimit == Long.MAX_VALUE ? EMPTY : narrow(lowerLimit + 1, Long.MAX_VALUE);
+    }
+
+    public LongRange greaterThanOrEquals(long lowerLimit) {
+        return narrow(lowerLimit, Long.MAX_VALUE);
+    }
+
+    public LongRange betweenInclusive(long lowerLimit, long upperLimit) {
+        return narrow(lowerLimit, upperLimit);
+    }
+
+    public LongRange betweenExclusive(long lowerLimit, long upperLimit) {
+        return greaterThan(lowerLimit).lessThan(upperLimit);
+    }
+
+    /**
+     * @param other Another range
+     * @return The range of the longs which are in both ranges
+     */
+    public LongRange and(LongRange other) {
+        return other.isEmpty() ? EMPTY : narrow(other.min, other.max);
+    }
+
+    /**
+     * @return True if the checks contradict each other, so that
+     * no long passes them
+     */
+    public boolean isEmpty() {
+        return min > max;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public boolean test(long value) {
+        return value >= min && value <= max;
+    }
+
+    /**
+     * @return 1 if the value is in the range, 0 otherwise. Within
+     * the range, the offset from the minimum is at most the span
+     * as unsigned numbers, which is told without a branch by the
+     * borrow of subtracting the offset from the span.
+     */
+    private static int pass(long value, long min, long span) {
+        long offset = value - min;
+        long borrow = (~span & offset) | (~(span ^ offset) & (span - offset));
+        return 1 - (int) (borrow >>> 63);
+    }
+
+    /**
+     * @param values The values to check
+     * @return The number of values in the range
+     */
+    public int count(long[] values) {
+        return count(values, 0, values.length);
+    }
+
+    /**
+     * @param values The values to check
+     * @param from The index of the first value to check
+     * @param to The index after the last value to check
+     * @return The number of values in the range
+     */
+    public int count(long[] values, int from, int to) {
+        Ranges.checkRange(values.length, from, to);
+        if (isEmpty()) {
+            return 0;
+        }
+
+        long min = this.min;
+        long span = max - min;
+        int count = 0;
+
+        for (int i = from; i < to; i++) {
+            count += pass(values[i], min, span);
+        }
+
+        return count;
+    }
+
+    /**
+     * @param values The values to check
+     * @return A bitmap in which bit i % 64 of word i / 64 is set
+     * if the value at index i is in the range
+     */
+    public long[] mask(long[] values) {
+        return mask(values, 0, values.length);
+    }
+
+    /**
+     * @param values The values to check
+     * @param from The index of the first value to check
+     * @param to The index after the last value to check
+     * @return A bitmap with bit i set if the value at index
+     * from + i is in the range
+     */
+    public long[] mask(long[] values, int from, int to) {
+        Ranges.checkRange(values.length, from, to);
+        long[] mask = new long[Ranges.words(to - from)];
+        if (isEmpty()) {
+            return mask;
+        }
+
+        long min = this.min;
+        long span = max - min;
+
+        for (int word = 0; word < mask.length; word++) {
+            int start = from + (word << 6);
+            int end = Math.min(start + 64, to);
+            long bits = 0;
+
+            for (int i = start; i < end; i++) {
+                bits |= (long) pass(values[i], min, span) << (i - start);
+            }
+
+            mask[word] = bits;
+        }
+
+        return mask;
+    }
+
+    /**
+     * Writes the indexes of the values in the range to a selection
+     * vector.
+     * @param values The values to check
+     * @param from The index of the first value to check
+     * @param to The index after the last value to check
+     * @param indexes Receives the indexes of the values in the
+     *                range, in order; it must have room for
+     *                to - from indexes
+     * @return The number of indexes written
+     */
+    public int select(long[] values, int from, int to, int[] indexes) {
+        Ranges.checkRange(values.length, from, to);
+        Ranges.checkCapacity(indexes.length, to - from);
+        if (isEmpty()) {
+            return 0;
+        }
+
+        long min = this.min;
+        long span = max - min;
+        int count = 0;
+
+        for (int i = from; i < to; i++) {
+            // always written, but only kept when the value passes
+            indexes[count] = i;
+            count += pass(values[i], min, span);
+        }
+
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return isEmpty() ? "LongRange[]" : "LongRange[" + min + ", " + max + "]";
+    }
+}
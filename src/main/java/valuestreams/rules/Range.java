@@ -0,0 +1,241 @@
+package valuestreams.rules;
+
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * A range of comparable values built from the same checks
+ * NumericalValue offers. Every check is merged into the two
+ * bounds of the range when it's added, so however many checks
+ * a chain has, testing a value costs at most two comparisons,
+ * and checks which contradict each other are found while the
+ * range is built: the range is then empty and rejects every
+ * value. Ranges are immutable, can be shared between threads,
+ * and are predicates, so they can be passed to Pipeline.filter()
+ * or NumericalValue.within().
+ * {@code
+ * Range<Integer> quantity = Range.all(Integer.class).greaterThan(5).lessThanOrEquals(100).betweenExclusive(0, 200);
+ * // quantity is (5, 100]
+ * }
+ * Bounds are compared as they are, so an exclusive range between
+ * neighboring integers isn't known to be empty; IntRange and
+ * LongRange normalize such ranges.
+ * @param <T> The type of the values in the range
+ */
+public final class Range<T extends Comparable<? super T>> implements Predicate<T> {
+    @SuppressWarnings("rawtypes")
+    private static final Range ALL = new Range<>(null, false, null, false, false);
+    @SuppressWarnings("rawtypes")
+    private static final Range EMPTY = new Range<>(null, false, null, false, true);
+
+    // a null bound means that side is unbounded
+    private final T lower;
+    private final boolean lowerInclusive;
+    private final T upper;
+    private final boolean upperInclusive;
+    private final boolean empty;
+
+    private Range(T lower, boolean lowerInclusive, T upper, boolean upperInclusive, boolean empty) {
+        this.lower = lower;
+        this.lowerInclusive = lowerInclusive;
+        this.upper = upper;
+        this.upperInclusive = upperInclusive;
+        this.empty = empty;
+    }
+
+    /**
+     * @param <T> The type of the values
+     * @return The range of every value, to be narrowed by checks
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Comparable<? super T>> Range<T> all() {
+        return (Range<T>) ALL;
+    }
+
+    /**
+     * Same as all(), but takes the type so that checks can be
+     * chained right away.
+     * @param type The type of the values
+     * @param <T> The type of the values
+     * @return The range of every value
+     */
+    public static <T extends Comparable<? super T>> Range<T> all(Class<T> type) {
+        return all();
+    }
+
+    /**
+     * @param <T> The type of the values
+     * @return The range which no value is in
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Comparable<? super T>> Range<T> none() {
+        return (Range<T>) EMPTY;
+    }
+
+    /**
+     * Merges new bounds into the current ones, keeping the tighter
+     * bound on each side.
+     */
+    private Range<T> narrow(T newLower, boolean newLowerInclusive, T newUpper, boolean newUpperInclusive) {
+        if (empty) {
+            return this;
+        }
+
+        T mergedLower = lower;
+        boolean mergedLowerInclusive = lowerInclusive;
+        if (newLower != null) {
+            int order = lower == null ? 1 : newLower.compareTo(lower);
+            if (order > 0) {
+                mergedLower = newLower;
+                mergedLowerInclusive = newLowerInclusive;
+            } else if (order == 0) {
+                mergedLowerInclusive &= newLowerInclusive;
+            }
+        }
+
+        T mergedUpper = upper;
+        boolean mergedUpperInclusive = upperInclusive;
+        if (newUpper != null) {
+            int order = upper == null ? -1 : newUpper.compareTo(upper);
+            if (order < 0) {
+                mergedUpper = newUpper;
+                mergedUpperInclusive = newUpperInclusive;
+            } else if (order == 0) {
+                mergedUpperInclusive &= newUpperInclusive;
+            }
+        }
+
+        if (mergedLower != null && mergedUpper != null) {
+            int order = mergedLower.compareTo(mergedUpper);
+            if (order > 0 || (order == 0 && !(mergedLowerInclusive && mergedUpperInclusive))) {
+                return none();
+            }
+        }
+
+        if (mergedLower == lower && mergedLowerInclusive == lowerInclusive
+                && mergedUpper == upper && mergedUpperInclusive == upperInclusive) {
+            return this;
+        }
+        return new Range<>(mergedLower, mergedLowerInclusive, mergedUpper, mergedUpperInclusive, false);
+    }
+
+    public Range<T> isEqualTo(T other) {
+        Objects.requireNonNull(other);
+        return narrow(other, true, other, true);
+    }
+
+    public Range<T> lessThan(T upperLimit) {
+        return narrow(null, false, Objects.requireNonNull(upperLimit), false);
+    }
+
+    public Range<T> lessThanOrEquals(T upperLimit) {
+        return narrow(null, false, Objects.requireNonNull(upperLimit), true);
+    }
+
+    public Range<T> greaterThan(T lowerLimit) {
+        return narrow(Objects.requireNonNull(lowerLimit), false, null, false);
+    }
+
+    public Range<T> greaterThanOrEquals(T lowerLimit) {
+        return narrow(Objects.requireNonNull(lowerLimit), true, null, false);
+    }
+
+    public Range<T> betweenInclusive(T lowerLimit, T upperLimit) {
+        return narrow(Objects.requireNonNull(lowerLimit), true, Objects.requireNonNull(upperLimit), true);
+    }
+
+    public Range<T> betweenExclusive(T lowerLimit, T upperLimit) {
+        return narrow(Objects.requireNonNull(lowerLimit), false, Objects.requireNonNull(upperLimit), false);
+    }
+
+    /**
+     * @param other Another range
+     * @return The range of the values which are in both ranges
+     */
+    public Range<T> and(Range<T> other) {
+        return other.empty ? none() : narrow(other.lower, other.lowerInclusive, other.upper, other.upperInclusive);
+    }
+
+    /**
+     * @return True if the checks contradict each other, so that
+     * no value passes them
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * @return The lower bound, or null if there is none
+     */
+    public T getLower() {
+        return lower;
+    }
+
+    public boolean isLowerInclusive() {
+        return lowerInclusive;
+    }
+
+    /**
+     * @return The upper bound, or null if there is none
+     */
+    public T getUpper() {
+        return upper;
+    }
+
+    public boolean isUpperInclusive() {
+        return upperInclusive;
+    }
+
+    /**
+     * @param value The value to check
+     * @return True if the value is in the range; null is in none
+     */
+    @Override
+    public boolean test(T value) {
+        if (value == null || empty) {
+            return false;
+        }
+
+        if (lower != null) {
+            int order = value.compareTo(lower);
+            if (order < 0 || (order == 0 && !lowerInclusive)) {
+                return false;
+            }
+        }
+
+        if (upper != null) {
+            int order = value.compareTo(upper);
+            return order < 0 || (order == 0 && upperInclusive);
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Range)) {
+            return false;
+        }
+
+        Range<?> range = (Range<?>) other;
+        return empty == range.empty && lowerInclusive == range.lowerInclusive && upperInclusive == range.upperInclusive
+                && Objects.equals(lower, range.lower) && Objects.equals(upper, range.upper);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(empty, lower, lowerInclusive, upper, upperInclusive);
+    }
+
+    @Override
+    public String toString() {
+        if (empty) {
+            return "Range[]";
+        }
+        return "Range" + (lower == null ? "(-inf" : (lowerInclusive ? "[" : "(") + lower) + ", "
+                + (upper == null ? "+inf)" : upper + (upperInclusive ? "]" : ")"));
+    }
+}
@@ -0,0 +1,25 @@
+package valuestreams.rules;
+
+/**
+ * Argument checks and bitmap sizing shared by the range kernels.
+ */
+final class Ranges {
+    private Ranges() {}
+
+    static void checkRange(int length, int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") is out of bounds for length " + length);
+        }
+    }
+
+    static void checkCapacity(int capacity, int needed) {
+        if (capacity < needed) {
+            throw new IllegalArgumentException("Room for " + needed + " indexes is needed, but only "
+                    + capacity + " are available");
+        }
+    }
+
+    static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+}
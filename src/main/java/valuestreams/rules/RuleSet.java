@@ -0,0 +1,303 @@
+package valuestreams.rules;
+
+import valuestreams.functions.CheckedPredicate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * Named rules which are all evaluated on a value, recording which
+ * ones failed as a bitmask instead of stopping at the first one:
+ * bit i is set if rule i (in the order the rules were added)
+ * failed. A rule fails if it returns false or throws an exception;
+ * the exception itself isn't kept. Up to 64 rules fit in a single
+ * long, and any number of rules in a long[]. FailureCounts adds up
+ * the failures of every rule over many values in one pass.
+ * Rule sets are immutable; every call to and() returns a new
+ * instance. A rule set is also a predicate which passes the values
+ * that pass all of its rules.
+ * {@code
+ * RuleSet<Order> rules = RuleSet.<Order>of("has customer", o -> o.customer != null)
+ *         .and("positive total", o -> o.total > 0)
+ *         .andWithException("known currency", o -> Currency.getInstance(o.currency) != null);
+ * long failed = rules.failures(order);
+ * FailureCounts counts = rules.countFailures(orders.stream());
+ * }
+ * @param <T> The type of the checked values
+ */
+public final class RuleSet<T> implements Predicate<T> {
+    private final String[] names;
+    private final Predicate<? super T>[] rules;
+    private final Map<String, Integer> indexes;
+
+    private RuleSet(String[] names, Predicate<? super T>[] rules) {
+        this.names = names;
+        this.rules = rules;
+        this.indexes = new HashMap<>();
+
+        for (int i = 0; i < names.length; i++) {
+            indexes.put(names[i], i);
+        }
+    }
+
+    /**
+     * @param name The name of the rule
+     * @param rule The rule
+     * @param <T> The type of the checked values
+     * @return A set of a single rule
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static <T> RuleSet<T> of(String name, Predicate<? super T> rule) {
+        return new RuleSet<>(new String[] {Objects.requireNonNull(name)},
+                new Predicate[] {Objects.requireNonNull(rule)});
+    }
+
+    /**
+     * @param name The name of the rule
+     * @param rule A rule which may throw an exception, which counts
+     *             as a failure
+     * @param <T> The type of the checked values
+     * @return A set of a single rule
+     */
+    public static <T> RuleSet<T> ofWithException(String name, CheckedPredicate<? super T> rule) {
+        return of(name, unchecked(rule));
+    }
+
+    /**
+     * @param name The name of the rule, which must differ from the
+     *             names of the other rules
+     * @param rule The rule
+     * @return A new rule set with the given rule added at the end
+     */
+    public RuleSet<T> and(String name, Predicate<? super T> rule) {
+        Objects.requireNonNull(rule);
+        if (indexes.containsKey(Objects.requireNonNull(name))) {
+            throw new IllegalArgumentException("Duplicate rule name: " + name);
+        }
+
+        String[] extendedNames = Arrays.copyOf(names, names.length + 1);
+        Predicate<? super T>[] extendedRules = Arrays.copyOf(rules, rules.length + 1);
+        extendedNames[names.length] = name;
+        extendedRules[rules.length] = rule;
+        return new RuleSet<>(extendedNames, extendedRules);
+    }
+
+    /**
+     * @param name The name of the rule, which must differ from the
+     *             names of the other rules
+     * @param rule A rule which may throw an exception, which counts
+     *             as a failure
+     * @return A new rule set with the given rule added at the end
+     */
+    public RuleSet<T> andWithException(String name, CheckedPredicate<? super T> rule) {
+        return and(name, unchecked(rule));
+    }
+
+    private static <T> Predicate<T> unchecked(CheckedPredicate<? super T> rule) {
+        Objects.requireNonNull(rule);
+        return value -> {
+            try {
+                return Boolean.TRUE.equals(rule.test(value));
+            } catch (Exception ex) {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return The number of rules
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @return The number of longs a bitmask of this set takes
+     */
+    public int wordCount() {
+        return (names.length + 63) >>> 6;
+    }
+
+    /**
+     * @return The names of the rules in the order they were added,
+     * which is the order of their bits
+     */
+    public List<String> names() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    /**
+     * @param name The name of a rule
+     * @return The index of the rule, which is its bit
+     * @throws NoSuchElementException If there is no such rule
+     */
+    public int indexOf(String name) {
+        Integer index = indexes.get(name);
+        if (index == null) {
+            throw new NoSuchElementException("No rule named " + name);
+        }
+        return index;
+    }
+
+    private boolean passes(int rule, T value) {
+        try {
+            return rules[rule].test(value);
+        } catch (RuntimeException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Evaluates every rule on a value. A null value fails every
+     * rule without evaluating them.
+     * @param value The value to check
+     * @return The bitmask of the failed rules, which is 0 if all
+     * of them passed
+     * @throws IllegalStateException If the set has more than 64
+     * rules, which need failures(value, words) instead
+     */
+    public long failures(T value) {
+        if (names.length > Long.SIZE) {
+            throw new IllegalStateException(names.length + " rules don't fit in a single long");
+        }
+        if (value == null) {
+            return names.length == Long.SIZE ? -1L : (1L << names.length) - 1;
+        }
+
+        long failures = 0;
+        for (int i = 0; i < rules.length; i++) {
+            if (!passes(i, value)) {
+                failures |= 1L << i;
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Evaluates every rule on a value and writes the failures to
+     * an existing bitmask, so that no array is created per value.
+     * @param value The value to check
+     * @param words Receives the bitmask of the failed rules; must
+     *              have at least wordCount() longs
+     * @return True if any rule failed
+     */
+    public boolean failures(T value, long[] words) {
+        int count = wordCount();
+        if (words.length < count) {
+            throw new IllegalArgumentException("The bitmask needs " + count + " longs, but has " + words.length);
+        }
+
+        boolean failed = false;
+        for (int w = 0; w < count; w++) {
+            long word = 0;
+            for (int i = w << 6, end = Math.min(i + 64, rules.length); i < end; i++) {
+                if (value == null || !passes(i, value)) {
+                    word |= 1L << i;
+                }
+            }
+            words[w] = word;
+            failed |= word != 0;
+        }
+        return failed;
+    }
+
+    /**
+     * @param value The value to check
+     * @return A new bitmask of the failed rules
+     */
+    public long[] failureWords(T value) {
+        long[] words = new long[wordCount()];
+        failures(value, words);
+        return words;
+    }
+
+    /**
+     * @param value The value to check
+     * @return True if the value passes every rule; evaluation
+     * stops at the first failed rule
+     */
+    @Override
+    public boolean test(T value) {
+        if (value == null) {
+            return names.length == 0;
+        }
+        for (int i = 0; i < rules.length; i++) {
+            if (!passes(i, value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param failures A bitmask of this set
+     * @return The names of the failed rules
+     */
+    public List<String> describe(long failures) {
+        return describe(new long[] {failures});
+    }
+
+    /**
+     * @param failures A bitmask of this set
+     * @return The names of the failed rules
+     */
+    public List<String> describe(long[] failures) {
+        List<String> failed = new ArrayList<>();
+        for (int w = 0; w < failures.length; w++) {
+            long word = failures[w];
+            while (word != 0) {
+                failed.add(names[(w << 6) + Long.numberOfTrailingZeros(word)]);
+                word &= word - 1;
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * @return Empty counts of the failures of this set's rules
+     */
+    public FailureCounts newCounts() {
+        return new FailureCounts(names);
+    }
+
+    /**
+     * @return A collector which evaluates every rule on each value
+     * and counts the failures, and which works on parallel streams
+     */
+    public Collector<T, FailureCounts, FailureCounts> counting() {
+        return Collector.of(this::newCounts, this::record, FailureCounts::merge,
+                Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * @param values The values to check
+     * @return The failures of every rule over all values
+     */
+    public FailureCounts countFailures(Stream<? extends T> values) {
+        return values.collect(counting());
+    }
+
+    private void record(FailureCounts counts, T value) {
+        if (names.length <= Long.SIZE) {
+            counts.add(failures(value));
+        } else {
+            long[] words = counts.scratch(wordCount());
+            failures(value, words);
+            counts.add(words);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RuleSet" + Arrays.toString(names);
+    }
+}
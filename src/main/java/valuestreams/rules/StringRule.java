@@ -0,0 +1,262 @@
+package valuestreams.rules;
+
+import valuestreams.ByteSlice;
+import valuestreams.CharSequences;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * A set of the checks StringValue and TextValue offer, merged when
+ * they are added. Length checks are combined into one range, a
+ * prefix which extends another replaces it, and a required part
+ * which is contained in another one is dropped. Checks which can't
+ * all pass, such as a minimum length above the maximum, two
+ * different exact values, or an exact value which fails another
+ * check, are found while the rule is built and make it empty, so
+ * that it rejects everything. When tested, the cheapest checks run
+ * first. Rules are immutable, can be shared between threads, and
+ * are predicates, so they can be passed to Pipeline.filter() or
+ * StringValue.satisfies().
+ * {@code
+ * StringRule username = StringRule.all().lengthAtLeast(3).lengthAtMost(64).lengthBetween(1, 32).matches("[a-z0-9_]+");
+ * }
+ */
+public final class StringRule implements Predicate<CharSequence> {
+    private static final StringRule ALL = new StringRule(IntRange.all().greaterThanOrEquals(0), null, null,
+            Collections.emptyList(), Collections.emptyList());
+    private static final StringRule EMPTY = new StringRule(IntRange.none(), null, null,
+            Collections.emptyList(), Collections.emptyList());
+
+    private final IntRange length;
+    private final String exact;
+    private final String prefix;
+    private final List<String> parts;
+    private final List<Pattern> patterns;
+
+    private StringRule(IntRange length, String exact, String prefix, List<String> parts, List<Pattern> patterns) {
+        this.length = length;
+        this.exact = exact;
+        this.prefix = prefix;
+        this.parts = parts;
+        this.patterns = patterns;
+    }
+
+    /**
+     * @return The rule which every string passes, to be narrowed
+     * by checks
+     */
+    public static StringRule all() {
+        return ALL;
+    }
+
+    /**
+     * @return The rule which no string passes
+     */
+    public static StringRule none() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates the merged rule and checks whether its checks can
+     * all pass together.
+     */
+    private StringRule with(IntRange newLength, String newExact, String newPrefix, List<String> newParts,
+                            List<Pattern> newPatterns) {
+        if (isEmpty() || newLength.isEmpty()) {
+            return EMPTY;
+        }
+        if (newPrefix != null && newPrefix.length() > newLength.getMax()) {
+            return EMPTY;
+        }
+        for (String part : newParts) {
+            if (part.length() > newLength.getMax()) {
+                return EMPTY;
+            }
+        }
+
+        StringRule rule = new StringRule(newLength, newExact, newPrefix, newParts, newPatterns);
+        if (newExact != null && !rule.testChecks(newExact)) {
+            return EMPTY;
+        }
+        return rule;
+    }
+
+    public StringRule lengthAtLeast(int min) {
+        return with(length.greaterThanOrEquals(min), exact, prefix, parts, patterns);
+    }
+
+    public StringRule lengthAtMost(int max) {
+        return with(length.lessThanOrEquals(max), exact, prefix, parts, patterns);
+    }
+
+    public StringRule lengthBetween(int min, int max) {
+        return with(length.betweenInclusive(min, max), exact, prefix, parts, patterns);
+    }
+
+    public StringRule isEqualTo(CharSequence other) {
+        String value = other.toString();
+        if (exact != null && !exact.equals(value)) {
+            return EMPTY;
+        }
+        return with(length, value, prefix, parts, patterns);
+    }
+
+    public StringRule startsWith(CharSequence other) {
+        String value = other.toString();
+        if (prefix == null || value.startsWith(prefix)) {
+            return with(length, exact, value, parts, patterns);
+        }
+        // the current prefix already covers the new one, or the two can't both be prefixes
+        return prefix.startsWith(value) ? this : EMPTY;
+    }
+
+    public StringRule contains(CharSequence sequence) {
+        String value = sequence.toString();
+        List<String> merged = new ArrayList<>(parts.size() + 1);
+
+        for (String part : parts) {
+            if (part.contains(value)) {
+                return this;
+            }
+            if (!value.contains(part)) {
+                merged.add(part);
+            }
+        }
+        merged.add(value);
+
+        return with(length, exact, prefix, Collections.unmodifiableList(merged), patterns);
+    }
+
+    public StringRule matches(String regex) {
+        return matches(Pattern.compile(regex));
+    }
+
+    public StringRule matches(Pattern pattern) {
+        for (Pattern existing : patterns) {
+            if (existing.pattern().equals(pattern.pattern()) && existing.flags() == pattern.flags()) {
+                return this;
+            }
+        }
+
+        List<Pattern> merged = new ArrayList<>(patterns);
+        merged.add(pattern);
+        return with(length, exact, prefix, parts, Collections.unmodifiableList(merged));
+    }
+
+    /**
+     * @param other Another rule
+     * @return A rule which passes the strings both rules pass
+     */
+    public StringRule and(StringRule other) {
+        if (other.isEmpty()) {
+            return EMPTY;
+        }
+
+        StringRule rule = with(length.and(other.length), exact, prefix, parts, patterns);
+        if (other.exact != null) {
+            rule = rule.isEqualTo(other.exact);
+        }
+        if (other.prefix != null) {
+            rule = rule.startsWith(other.prefix);
+        }
+        for (String part : other.parts) {
+            rule = rule.contains(part);
+        }
+        for (Pattern pattern : other.patterns) {
+            rule = rule.matches(pattern);
+        }
+        return rule;
+    }
+
+    /**
+     * @return True if the checks contradict each other, so that
+     * no string passes them
+     */
+    public boolean isEmpty() {
+        return length.isEmpty();
+    }
+
+    /**
+     * @return The range of lengths the rule allows
+     */
+    public IntRange getLength() {
+        return length;
+    }
+
+    /**
+     * @return The number of checks left after merging, which are
+     * run on every tested string
+     */
+    public int checkCount() {
+        if (isEmpty()) {
+            return 0;
+        }
+        int count = length.getMin() == 0 && length.getMax() == Integer.MAX_VALUE ? 0 : 1;
+        return count + (exact != null ? 1 : 0) + (prefix != null ? 1 : 0) + parts.size() + patterns.size();
+    }
+
+    @Override
+    public boolean test(CharSequence value) {
+        if (value == null || isEmpty()) {
+            return false;
+        }
+        if (exact != null) {
+            // the other checks were verified against the exact value when it was added
+            return value instanceof ByteSlice ? ((ByteSlice) value).contentEquals(exact) : exact.contentEquals(value);
+        }
+        return testChecks(value);
+    }
+
+    private boolean testChecks(CharSequence value) {
+        if (!length.test(value.length())) {
+            return false;
+        }
+
+        if (prefix != null && !startsWith(value, prefix)) {
+            return false;
+        }
+
+        for (String part : parts) {
+            if (!contains(value, part)) {
+                return false;
+            }
+        }
+
+        for (Pattern pattern : patterns) {
+            if (!pattern.matcher(value).matches()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean startsWith(CharSequence value, String prefix) {
+        if (value instanceof ByteSlice) {
+            return ((ByteSlice) value).startsWith(prefix);
+        }
+        return CharSequences.startsWith(value, prefix);
+    }
+
+    private static boolean contains(CharSequence value, String part) {
+        if (value instanceof ByteSlice) {
+            return ((ByteSlice) value).contains(part);
+        }
+        return CharSequences.indexOf(value, part) >= 0;
+    }
+
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return "StringRule[]";
+        }
+        return "StringRule[length=" + length + (exact != null ? ", exact=" + exact : "")
+                + (prefix != null ? ", prefix=" + prefix : "") + (parts.isEmpty() ? "" : ", contains=" + parts)
+                + (patterns.isEmpty() ? "" : ", matches=" + patterns) + "]";
+    }
+}
@@ -0,0 +1,21 @@
+package valuestreams.pipeline;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Provides the executor used by asynchronous applications of
+ * a pipeline when none is given. Every task runs on its own
+ * virtual thread, so operations which block don't tie up the
+ * common pool.
+ */
+final class DefaultExecutor {
+    private static final ExecutorService INSTANCE = Executors.newVirtualThreadPerTaskExecutor();
+
+    private DefaultExecutor() {}
+
+    static Executor get() {
+        return INSTANCE;
+    }
+}
@@ -1,10 +1,19 @@
 import org.junit.jupiter.api.Test;
 import valuestreams.DateValue;
+import valuestreams.TimestampRange;
+import valuestreams.TimestampValue;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.Month;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.TimeZone;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -32,4 +41,97 @@ public class DateTests {
         assertTrue(DateValue.of(farFuture).future().isPresent());
         assertFalse(DateValue.of(farFuture).past().isPresent());
     }
+
+    @Test
+    void testParsing() {
+        Date expected = new GregorianCalendar(2000, Calendar.OCTOBER, 24).getTime();
+        assertEquals(expected, DateValue.of("2000-10-24", "yyyy-MM-dd").getNullable());
+        assertEquals(expected, DateValue.of("20001024", "yyyyMMdd").getNullable());
+        assertEquals(expected, DateValue.of("24/10/2000", "dd/MM/yyyy").getNullable());
+
+        Date withTime = new GregorianCalendar(2000, Calendar.OCTOBER, 24, 13, 5, 9).getTime();
+        assertEquals(withTime, DateValue.of("2000-10-24T13:05:09", "yyyy-MM-dd'T'HH:mm:ss").getNullable());
+        assertEquals(withTime, DateValue.of("2000-10-24 13:05:09", "yyyy-MM-dd HH:mm:ss").getNullable());
+        assertEquals(withTime.getTime() + 120,
+                DateValue.of("2000-10-24T13:05:09.120", "yyyy-MM-dd'T'HH:mm:ss.SSS").getNullable().getTime());
+        assertEquals(withTime, DateValue.of("13:05:09 24.10.2000", "HH:mm:ss dd.MM.yyyy").getNullable());
+
+        GregorianCalendar utc = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        utc.clear();
+        utc.set(2000, Calendar.OCTOBER, 24, 13, 5);
+        assertEquals(utc.getTime(), DateValue.of("2000-10-24 13:05 +0000", "yyyy-MM-dd HH:mm Z").getNullable());
+
+        assertTrue(DateValue.of("2000-13-24", "yyyy-MM-dd").isEmpty());
+        assertTrue(DateValue.of("2000-1x-24", "yyyy-MM-dd").isEmpty());
+        assertTrue(DateValue.of("20001324", "yyyyMMdd").isEmpty());
+        assertTrue(DateValue.of("not a date", "dd/MM/yyyy").isEmpty());
+        assertTrue(DateValue.of("24/10/2000 extra", "dd/MM/yyyy").isEmpty());
+        assertTrue(DateValue.of("0000-01-01", "yyyy-MM-dd").isEmpty());
+
+        // fields missing from the pattern default like SimpleDateFormat, keeping the parsed ones
+        Date christmas = new GregorianCalendar(1970, Calendar.DECEMBER, 25).getTime();
+        assertEquals(christmas, DateValue.of("25/12", "dd/MM").getNullable());
+        assertEquals(christmas, DateValue.of("12 25", "MM dd").getNullable());
+        assertEquals(new GregorianCalendar(2000, Calendar.OCTOBER, 1).getTime(), DateValue.of("10/2000", "MM/yyyy").getNullable());
+        assertTrue(DateValue.of("30/02", "dd/MM").isEmpty());
+        assertTrue(DateValue.of("0000-01-01 00:00:00", "yyyy-MM-dd HH:mm:ss").isEmpty());
+
+        // the gap and the overlap resolve like LocalDateTime.atZone
+        ZoneId saoPaulo = ZoneId.of("America/Sao_Paulo");
+        for (String text : new String[]{"2018-11-04 00:30", "2018-02-17 23:30", "2018-06-01 12:00"}) {
+            Date parsed = DateValue.of(text + " America/Sao_Paulo", "yyyy-MM-dd HH:mm VV").getNullable();
+            LocalDateTime local = LocalDateTime.parse(text.replace(' ', 'T'));
+            assertEquals(Date.from(local.atZone(saoPaulo).toInstant()), parsed, text);
+        }
+
+        LocalDateTime local = LocalDateTime.of(2017, 1, 1, 0, 0, 7);
+        for (int i = 0; i < 2_000; i++, local = local.plusMinutes(613)) {
+            Date expectedDate = Date.from(local.atZone(ZoneId.systemDefault()).toInstant());
+            assertEquals(expectedDate, DateValue.of(local.toString(), "yyyy-MM-dd'T'HH:mm:ss").getNullable());
+            assertEquals(expectedDate, DateValue.of(local.toString(), "uuuu-MM-dd'T'HH:mm:ss").getNullable());
+        }
+    }
+
+    @Test
+    void testTimestamps() {
+        ZoneId zone = ZoneId.of("Europe/Berlin");
+        TimestampValue first = DateValue.of(new GregorianCalendar(2000, Calendar.OCTOBER, 24).getTime())
+                .toTimestamp(ZoneId.systemDefault());
+
+        assertTrue(first.inMonth(Month.OCTOBER).inYear(2000).onDay(24).past().isPresent());
+        assertTrue(TimestampValue.of(24, Month.OCTOBER, 2000, zone).inYear(2001).isEmpty());
+
+        // 23:30 UTC on the 31st of December is already the next year in Berlin
+        long newYearsEve = LocalDate.of(1999, 12, 31).atTime(23, 30).toInstant(ZoneOffset.UTC).toEpochMilli();
+        assertTrue(TimestampValue.ofUtc(newYearsEve).inYear(1999).onDay(31).isPresent());
+        assertTrue(TimestampValue.of(newYearsEve, zone).inYear(2000).inMonth(Month.JANUARY).onDay(1).isPresent());
+        assertTrue(TimestampValue.of(newYearsEve, zone).within(TimestampRange.year(2000, zone)).isPresent());
+        assertTrue(TimestampValue.ofUtc(newYearsEve).within(TimestampRange.year(2000, ZoneOffset.UTC)).isEmpty());
+
+        for (long day = -800_000; day < 800_000; day += 997) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            TimestampValue value = TimestampValue.of(date.getDayOfMonth(), date.getMonth(), date.getYear(), zone);
+
+            assertEquals(date.atStartOfDay(zone).toInstant().toEpochMilli(), value.getOrElse(0));
+            assertTrue(value.inYear(date.getYear()).inMonth(date.getMonth()).onDay(date.getDayOfMonth()).isPresent());
+        }
+
+        // Sao Paulo moved from midnight to 01:00 when DST started in 2018
+        ZoneId saoPaulo = ZoneId.of("America/Sao_Paulo");
+        TimestampValue gapDay = TimestampValue.of(4, Month.NOVEMBER, 2018, saoPaulo);
+        assertEquals(OffsetDateTime.of(2018, 11, 4, 1, 0, 0, 0, ZoneOffset.ofHours(-2)).toInstant(), gapDay.toInstant());
+        assertTrue(gapDay.onDay(4).inMonth(Month.NOVEMBER).isPresent());
+        assertEquals(LocalDate.of(2018, 2, 17).atStartOfDay(saoPaulo).toInstant(),
+                TimestampValue.of(17, Month.FEBRUARY, 2018, saoPaulo).toInstant());
+
+        for (long hour = 420_000; hour < 440_000; hour += 7) {
+            long millis = hour * 3_600_000L;
+            assertTrue(TimestampValue.of(millis, saoPaulo)
+                    .onDay(Instant.ofEpochMilli(millis).atZone(saoPaulo).getDayOfMonth()).isPresent());
+        }
+
+        Date date = new GregorianCalendar(2003, Calendar.MARCH, 25).getTime();
+        assertEquals(date, DateValue.of(date).toTimestamp(zone).toDateValue().getNullable());
+        assertTrue(TimestampValue.empty().toDateValue().isEmpty());
+    }
 }
@@ -1,5 +1,15 @@
 import org.junit.jupiter.api.Test;
+import valuestreams.DateValue;
+import valuestreams.IntegerValue;
+import valuestreams.MutableValue;
+import valuestreams.StringValue;
 import valuestreams.Value;
+import valuestreams.pipeline.Pipeline;
+import valuestreams.rules.FailureCounts;
+import valuestreams.rules.RuleSet;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -30,4 +40,76 @@ public class GeneralTests {
         assertTrue(Value.of(1).toOptional().isPresent());
         assertFalse(Value.empty().toOptional().isPresent());
     }
+
+    @Test
+    void testSharedEmpty() {
+        assertSame(Value.empty(), Value.empty());
+        assertSame(StringValue.empty(), StringValue.empty());
+        assertSame(IntegerValue.empty(), IntegerValue.fromString("x"));
+        assertTrue(Value.<String>empty().validate(s -> true).map(String::length).isEmpty());
+        assertTrue(DateValue.empty().map(d -> d).isEmpty());
+    }
+
+    @Test
+    void testMutableValue() {
+        MutableValue<String> holder = MutableValue.create();
+        assertTrue(holder.isEmpty());
+
+        MutableValue<String> upper = holder.set("test").validate(s -> s.startsWith("t")).map(String::toUpperCase);
+        assertSame(holder, upper);
+        assertEquals("TEST", upper.getNullable());
+        assertTrue(holder.set("test").map(s -> null).isEmpty());
+
+        assertTrue(holder.set("rest").validate(s -> s.startsWith("t")).isEmpty());
+        assertTrue(holder.set("test").mapWithException(s -> { throw new Exception(); }).isEmpty());
+        assertFalse(holder.set("test").isEqualTo("test").isEmpty());
+
+        Pipeline<String, Integer> pipeline = Pipeline.input(String.class).pipe(Integer::valueOf);
+        MutableValue<Integer> result = MutableValue.create();
+        assertEquals(12, pipeline.apply("12", result).getNullable().intValue());
+        assertTrue(pipeline.apply("x", result).isEmpty());
+    }
+
+    @Test
+    void testRuleSets() {
+        RuleSet<String> rules = RuleSet.<String>of("not blank", s -> !s.trim().isEmpty())
+                .and("short", s -> s.length() <= 5)
+                .andWithException("numeric", s -> Integer.parseInt(s.trim()) >= 0)
+                .and("no spaces", s -> s.indexOf(' ') < 0);
+        assertThrows(IllegalArgumentException.class, () -> rules.and("short", s -> true));
+
+        assertEquals(0, rules.failures("42"));
+        assertEquals(0b0110, rules.failures("123456x"));
+        assertEquals(Arrays.asList("short", "numeric"), rules.describe(rules.failures("123456x")));
+        assertEquals(0b1111, rules.failures(null));
+        assertEquals(0b1000, rules.failures(" 7 "));
+        assertTrue(rules.test("7"));
+        assertFalse(rules.test("-7"));
+        assertTrue(Value.of("12").validate(rules).isPresent());
+
+        FailureCounts counts = rules.countFailures(Arrays.asList("1", "22", "abc", "toolong", " ", "9 9").stream());
+        assertEquals(6, counts.records());
+        assertEquals(4, counts.failedRecords());
+        assertEquals(1, counts.failures("not blank"));
+        assertEquals(1, counts.failures(rules.indexOf("short")));
+        assertEquals(4, counts.failures("numeric"));
+        assertEquals(2, counts.failures("no spaces"));
+
+        RuleSet<Integer> many = RuleSet.of("divisible by 1", x -> true);
+        for (int d = 2; d <= 100; d++) {
+            int divisor = d;
+            many = many.and("divisible by " + d, x -> x % divisor == 0);
+        }
+        assertEquals(2, many.wordCount());
+        RuleSet<Integer> manyRules = many;
+        assertThrows(IllegalStateException.class, () -> manyRules.failures(12));
+        long[] words = many.failureWords(70);
+        assertEquals(92, Long.bitCount(words[0]) + Long.bitCount(words[1]));
+        assertFalse(many.describe(words).contains("divisible by 70"));
+
+        FailureCounts parallel = IntStream.rangeClosed(1, 10_000).boxed().parallel().collect(many.counting());
+        assertEquals(10_000, parallel.records());
+        assertEquals(10_000 - 10_000 / 100, parallel.failures("divisible by 100"));
+        assertEquals(0, parallel.failures("divisible by 1"));
+    }
 }
@@ -1,8 +1,20 @@
 import org.junit.jupiter.api.Test;
 import valuestreams.DoubleValue;
 import valuestreams.IntegerValue;
+import valuestreams.LongValue;
 import valuestreams.NumericalValue;
+import valuestreams.PrimitiveDoubleValue;
+import valuestreams.PrimitiveIntValue;
+import valuestreams.PrimitiveLongValue;
+import valuestreams.pipeline.Pipeline;
+import valuestreams.rules.DoubleRange;
+import valuestreams.rules.IntRange;
+import valuestreams.rules.LongRange;
+import valuestreams.rules.Range;
 
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -61,4 +73,148 @@ public class NumericTests {
         assertFalse(integerValue.castMap(Long::valueOf).isEqualTo(1L).isEmpty());
         assertFalse(doubleValue.castMap(Double::intValue).isEqualTo(1).isEmpty());
     }
+
+    @Test
+    void testPrimitiveValues() {
+        assertTrue(PrimitiveIntValue.of(450).lessThan(500).greaterThanOrEquals(450).isPresent());
+        assertTrue(PrimitiveIntValue.of(450).betweenExclusive(450, 452).isEmpty());
+        assertTrue(PrimitiveLongValue.of(7L).map(l -> l * 2).isEqualTo(14L).isPresent());
+        assertTrue(PrimitiveDoubleValue.of(Double.NaN).lessThan(0).isEmpty());
+        assertTrue(PrimitiveIntValue.empty().map(i -> 1).isEmpty());
+        assertEquals(-1, PrimitiveIntValue.of(3).validate(i -> i % 2 == 0).getOrElse(-1));
+
+        assertEquals(5, IntegerValue.of(5).toPrimitive().betweenInclusive(0, 10).boxed().getNullable().intValue());
+        assertTrue(IntegerValue.empty().toPrimitive().isEmpty());
+        assertTrue(PrimitiveDoubleValue.of(1.5).boxed().isEqualTo(1.5).isPresent());
+    }
+
+    @Test
+    void testParsing() {
+        String[] integers = {"0", "-0", "+7", "2147483647", "-2147483648", "2147483648", "-2147483649",
+                "9223372036854775807", "-9223372036854775808", "9223372036854775808", "", "-", "+", "12a", " 1"};
+        for (String str : integers) {
+            assertEquals(parseOrNull(str, Integer::parseInt), IntegerValue.fromString(str).getNullable(), str);
+            assertEquals(parseOrNull(str, Long::parseLong), LongValue.fromString(str).getNullable(), str);
+        }
+
+        String[] doubles = {"0", "-0.0", "1.5", ".5", "5.", "1e10", "1E-5", "-2.5e+3", "1.7976931348623157E308",
+                "4.9e-324", "1e400", "123456789012345678901234", "0.1", "NaN", "-Infinity", "0x1p3", " 2.5 ",
+                "1.5d", "2f", "", ".", "e5", "1e", "1e+", "1.2.3", "abc", "1x", "N/A", "NULL", "NA", "Nan", "NaNd",
+                "+NaN", "Inf", "-Inf", "Infinityx", "+Infinity", "\t-Infinity\n", "0x", "0x1", "0x.p1", "-0X1.8P-2f",
+                "0x1p", "0xgp1", " ", "\u00a01"};
+        for (String str : doubles) {
+            assertEquals(parseOrNull(str, Double::parseDouble), DoubleValue.fromString(str).getNullable(), str);
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            String str = Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20));
+            assertEquals(Double.parseDouble(str), DoubleValue.fromString(str).getNullable().doubleValue(), str);
+        }
+
+        // invalid input is rejected without throwing, so any exception fails the test
+        String alphabet = "0123456789.eE+-xXpPaAfFdDNI \t";
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder builder = new StringBuilder();
+            for (int length = random.nextInt(8); length > 0; length--) {
+                builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String str = builder.toString();
+            Double parsed = PrimitiveDoubleValue.fromString(str).boxed().getNullable();
+            assertEquals(parseOrNull(str, Double::parseDouble), parsed, str);
+        }
+
+        assertEquals(42, IntegerValue.fromString("id=42;", 3, 5).getNullable().intValue());
+        assertEquals(-3L, PrimitiveLongValue.fromString(new StringBuilder("-3")).getOrElse(0));
+        assertTrue(PrimitiveIntValue.fromString("x").isEmpty());
+    }
+
+    private static <T> T parseOrNull(String str, Function<String, T> parser) {
+        try {
+            return parser.apply(str);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    @Test
+    void testRangeKernels() {
+        Random random = new Random(7);
+        int[] ints = random.ints(1000, -300, 300).toArray();
+        ints[0] = Integer.MIN_VALUE;
+        ints[1] = Integer.MAX_VALUE;
+        long[] longs = random.longs(1000).toArray();
+        double[] doubles = random.doubles(1000, -2, 2).toArray();
+        doubles[0] = Double.NaN;
+        doubles[1] = Double.NEGATIVE_INFINITY;
+
+        IntRange intRange = IntRange.all().greaterThan(-100).lessThanOrEquals(250).betweenExclusive(-200, 200);
+        assertEquals(-99, intRange.getMin());
+        assertEquals(199, intRange.getMax());
+        assertTrue(IntRange.all().greaterThan(5).lessThan(6).isEmpty());
+        assertTrue(IntRange.all().greaterThan(Integer.MAX_VALUE).isEmpty());
+        assertTrue(PrimitiveIntValue.of(150).within(intRange).isPresent());
+        assertFalse(PrimitiveIntValue.of(200).within(intRange).isPresent());
+
+        int[] indexes = new int[ints.length];
+        int selected = intRange.select(ints, 10, 900, indexes);
+        long[] mask = intRange.mask(ints, 10, 900);
+        int expected = 0;
+        for (int i = 10; i < 900; i++) {
+            boolean pass = ints[i] > -100 && ints[i] < 200;
+            assertEquals(pass, (mask[(i - 10) >>> 6] & (1L << (i - 10))) != 0);
+            if (pass) {
+                assertEquals(i, indexes[expected++]);
+            }
+        }
+        assertEquals(expected, selected);
+        assertEquals(expected, intRange.count(ints, 10, 900));
+        assertEquals(0, IntRange.none().count(ints));
+        assertEquals(ints.length, IntRange.all().count(ints));
+
+        long low = -Long.MAX_VALUE / 2;
+        LongRange longRange = LongRange.all().greaterThanOrEquals(low).lessThan(Long.MAX_VALUE);
+        long expectedLongs = Arrays.stream(longs).filter(x -> x >= low && x < Long.MAX_VALUE).count();
+        assertEquals(expectedLongs, longRange.count(longs));
+        assertEquals(longs.length, LongRange.all().count(longs));
+        assertEquals(1, LongRange.all().isEqualTo(longs[5]).count(longs));
+        assertTrue(LongRange.all().lessThan(Long.MIN_VALUE).isEmpty());
+
+        DoubleRange doubleRange = DoubleRange.all().betweenExclusive(-1.0, 1.0).and(DoubleRange.all().greaterThan(0));
+        long expectedDoubles = Arrays.stream(doubles).filter(x -> x > 0 && x < 1.0).count();
+        assertEquals(expectedDoubles, doubleRange.count(doubles));
+        assertEquals(doubles.length - 1, DoubleRange.all().count(doubles));
+        assertFalse(doubleRange.test(0.0));
+        assertTrue(PrimitiveDoubleValue.of(0.5).within(doubleRange).isPresent());
+        assertThrows(IllegalArgumentException.class, () -> DoubleRange.all().lessThan(Double.NaN));
+        assertTrue(DoubleRange.all().greaterThan(Double.POSITIVE_INFINITY).isEmpty());
+        assertTrue(DoubleRange.all().lessThan(Double.NEGATIVE_INFINITY).isEmpty());
+        assertTrue(DoubleRange.all().betweenExclusive(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY).isEmpty());
+        assertTrue(DoubleRange.all().betweenExclusive(Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY).isEmpty());
+        assertFalse(DoubleRange.all().greaterThan(Double.POSITIVE_INFINITY).test(Double.POSITIVE_INFINITY));
+        assertTrue(DoubleRange.all().greaterThan(Double.NEGATIVE_INFINITY).test(Double.POSITIVE_INFINITY));
+        assertFalse(DoubleRange.all().greaterThan(Double.NEGATIVE_INFINITY).test(Double.NEGATIVE_INFINITY));
+        assertThrows(IndexOutOfBoundsException.class, () -> doubleRange.count(doubles, 5, 2000));
+    }
+
+    @Test
+    void testRangeAlgebra() {
+        Range<Integer> quantity = Range.all(Integer.class).greaterThan(5).lessThanOrEquals(100).betweenExclusive(0, 200);
+        assertEquals(Range.all(Integer.class).greaterThan(5).lessThanOrEquals(100), quantity);
+        assertEquals("Range(5, 100]", quantity.toString());
+        assertFalse(quantity.test(5));
+        assertTrue(quantity.test(6));
+        assertTrue(quantity.test(100));
+        assertFalse(quantity.test(null));
+
+        assertTrue(quantity.and(Range.all(Integer.class).greaterThanOrEquals(100)).test(100));
+        assertTrue(quantity.and(Range.all(Integer.class).greaterThan(100)).isEmpty());
+        assertTrue(Range.all(Integer.class).lessThan(10).greaterThan(20).isEmpty());
+        assertTrue(Range.all(Double.class).isEqualTo(1.5).lessThan(1.5).isEmpty());
+        assertSame(quantity, quantity.lessThan(300));
+
+        assertTrue(IntegerValue.of(42).within(quantity).isPresent());
+        assertTrue(IntegerValue.of(420).within(quantity).isEmpty());
+        assertEquals(3, Pipeline.input(Integer.class).filter(quantity).select(new Integer[]{1, 6, 50, 100, 101}).cardinality());
+    }
 }
@@ -1,9 +1,43 @@
 import org.junit.jupiter.api.Test;
+import org.reactivestreams.Processor;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 import valuestreams.Value;
 import valuestreams.functions.MultiArgsFunction;
+import valuestreams.io.MappedLineSource;
+import valuestreams.operations.OperationType;
+import valuestreams.pipeline.BatchResult;
+import valuestreams.pipeline.BranchResults;
+import valuestreams.pipeline.Branches;
+import valuestreams.pipeline.CacheOptions;
+import valuestreams.pipeline.CachingOperation;
+import valuestreams.pipeline.ParallelOptions;
 import valuestreams.pipeline.Pipeline;
+import valuestreams.pipeline.PipelineMetrics;
+import valuestreams.pipeline.PipelineProcessor;
+import valuestreams.pipeline.ProcessorOptions;
+import valuestreams.pipeline.SelectionBitmap;
+import valuestreams.pipeline.StageSnapshot;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -113,4 +147,663 @@ public class PipelineTests {
         assertFalse(not5.getNullable());
         assertTrue(is5.getNullable());
     }
+
+    @Test
+    void compiledPipeline() {
+        Pipeline<String, Integer> base = Pipeline.input(String.class)
+                .pipe(Integer::valueOf)
+                .filter(i -> i > 10);
+
+        Pipeline<String, String> compiled = base.compile()
+                .pipeWithException(PipelineTests::doubleOrThrow)
+                .pipe(Object::toString)
+                .compile();
+
+        assertEquals("24", compiled.apply("12").getNullable());
+        assertFalse(compiled.apply("a").isPresent());
+        assertFalse(compiled.apply("5").isPresent());
+        assertFalse(compiled.apply("99").isPresent());
+        assertEquals("5", Pipeline.input(String.class).compile().apply("5").getNullable());
+
+        // a null input reaches no stage, compiled or not
+        Pipeline<String, String> nullAware = Pipeline.<String>input().pipe(s -> s == null ? "was-null" : s);
+        assertFalse(nullAware.apply(null).isPresent());
+        assertFalse(nullAware.compile().apply(null).isPresent());
+        assertFalse(compiled.apply(null).isPresent());
+        assertFalse(Pipeline.input(String.class).compile().apply(null).isPresent());
+    }
+
+    static int doubleOrThrow(int i) throws IOException {
+        if (i > 50) {
+            throw new IOException("Too large to double.");
+        }
+
+        return i * 2;
+    }
+
+    @Test
+    void batchPipeline() {
+        Pipeline<String, Integer> pipeline = Pipeline.input(String.class)
+                .pipe(Integer::valueOf)
+                .filter(i -> i > 10)
+                .pipe(i -> i * 2);
+
+        String[] inputs = new String[100];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = i % 3 == 0 ? "x" : Integer.toString(i);
+        }
+        inputs[99] = null;
+
+        BatchResult<Integer> result = pipeline.applyBatch(inputs);
+        assertEquals(100, result.size());
+        for (int i = 0; i < inputs.length; i++) {
+            assertEquals(pipeline.apply(inputs[i]).getNullable(), result.get(i));
+        }
+
+        List<Integer> indexes = new ArrayList<>();
+        result.forEachPresent((value, index) -> indexes.add(index));
+        assertEquals(result.presentCount(), indexes.size());
+        assertEquals(Integer.valueOf(22), result.get(11));
+        assertFalse(result.isPresent(12));
+
+        BatchResult<Integer> fromList = pipeline.applyBatch(Arrays.asList("12", "b"));
+        assertEquals(24, fromList.getValue(0).getNullable().intValue());
+        assertFalse(fromList.getValue(1).isPresent());
+    }
+
+    @Test
+    void parallelPipeline() {
+        Pipeline<Integer, Integer> pipeline = Pipeline.input(Integer.class)
+                .filter(i -> i % 3 != 0)
+                .pipe(i -> i * 2);
+
+        List<Integer> inputs = IntStream.range(0, 100_000).boxed().collect(Collectors.toList());
+        List<Integer> expected = pipeline.applyStreamAndFilter(inputs.stream()).collect(Collectors.toList());
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelOptions options = ParallelOptions.defaults().pool(pool).granularity(100);
+
+            assertEquals(expected, pipeline.applyParallel(inputs, options));
+            assertEquals(expected, pipeline.applyParallel(inputs.toArray(new Integer[0]), options));
+            assertEquals(expected, pipeline.applyParallel(inputs.spliterator()));
+
+            List<Integer> unordered = pipeline.applyParallel(inputs, options.ordered(false));
+            unordered.sort(null);
+            assertEquals(expected, unordered);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void asyncPipeline() throws Exception {
+        Pipeline<String, Integer> pipeline = Pipeline.input(String.class)
+                .pipe(Integer::valueOf)
+                .filter(i -> i > 10);
+
+        assertEquals(12, pipeline.applyAsync("12").get().getNullable().intValue());
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            assertFalse(pipeline.applyAsync("a", executor).get().isPresent());
+
+            List<String> inputs = IntStream.range(0, 1000).mapToObj(Integer::toString).collect(Collectors.toList());
+            List<Value<Integer>> results = pipeline.applyAllAsync(inputs, 2, executor).get();
+
+            assertEquals(1000, results.size());
+            for (int i = 0; i < inputs.size(); i++) {
+                assertEquals(i > 10, results.get(i).isPresent());
+            }
+            assertTrue(pipeline.applyAllAsync(new ArrayList<>(), 2).get().isEmpty());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void unwrappedResults() {
+        Pipeline<String, Integer> pipeline = Pipeline.input(String.class)
+                .pipe(Integer::valueOf)
+                .filter(i -> i > 10);
+
+        assertEquals(12, pipeline.applyOrNull("12").intValue());
+        assertNull(pipeline.applyOrNull("5"));
+        assertEquals(-1, pipeline.applyOrDefault("x", -1).intValue());
+
+        List<Integer> consumed = new ArrayList<>();
+        assertTrue(pipeline.applyInto("20", consumed::add));
+        assertFalse(pipeline.applyInto("2", consumed::add));
+        assertEquals(Arrays.asList(20), consumed);
+
+        List<String> inputs = IntStream.range(0, 10_000).mapToObj(Integer::toString).collect(Collectors.toList());
+        List<Integer> expected = IntStream.range(11, 10_000).boxed().collect(Collectors.toList());
+        assertEquals(expected, pipeline.applyStreamAndFilter(inputs.stream()).collect(Collectors.toList()));
+        assertEquals(expected, pipeline.applyStreamAndFilter(inputs.parallelStream()).collect(Collectors.toList()));
+        assertEquals(2, pipeline.applyStreamAndFilter(Stream.of("12", "b", "5", "13")).limit(5).count());
+    }
+
+    private static Pipeline<String, Integer> parseAboveTen() {
+        return Pipeline.input(String.class)
+                .pipeWithException(Integer::valueOf)
+                .filter(i -> i > 10);
+    }
+
+    @Test
+    void instrumentingIsOptIn() {
+        Pipeline<String, Integer> plain = parseAboveTen();
+        assertFalse(plain.isInstrumented());
+        assertThrows(IllegalStateException.class, plain::metrics);
+
+        assertTrue(plain.instrumented().isInstrumented());
+        assertEquals(2, plain.instrumented().metrics().stageCount());
+    }
+
+    @Test
+    void instrumentedStageCounters() {
+        Pipeline<String, String> pipeline = parseAboveTen().instrumented().pipe(i -> i > 20 ? null : i.toString());
+        assertTrue(pipeline.isInstrumented());
+
+        Stream.of("12", "a", "5", "30", "b", "15").forEach(pipeline::apply);
+        pipeline.applyBatch(Arrays.asList("1", "c"));
+        pipeline.compile().apply("11");
+
+        List<StageSnapshot> stages = pipeline.metrics().snapshot();
+        assertEquals(3, stages.size());
+
+        StageSnapshot parse = stages.get(0);
+        assertEquals(1, parse.getIndex());
+        assertEquals(OperationType.PIPE, parse.getType());
+        assertEquals(9, parse.getInvocations());
+        assertEquals(3, parse.getExceptions());
+        assertEquals(0, parse.getNullOutputs());
+        assertTrue(parse.getLastException() instanceof NumberFormatException);
+
+        StageSnapshot filter = stages.get(1);
+        assertEquals(OperationType.FILTER, filter.getType());
+        assertEquals(6, filter.getInvocations());
+        assertEquals(2, filter.getRejections());
+
+        StageSnapshot format = stages.get(2);
+        assertEquals(4, format.getInvocations());
+        assertEquals(1, format.getNullOutputs());
+        assertEquals(0, format.getRejections());
+        assertEquals(4, format.getSampledInvocations());
+        assertEquals(4, Arrays.stream(format.getLatencyHistogram()).sum());
+        assertTrue(format.getLatencyPercentileNanos(50) <= format.getLatencyPercentileNanos(100));
+    }
+
+    @Test
+    void instrumentedMetricsReset() {
+        Pipeline<String, Integer> pipeline = parseAboveTen().instrumented();
+        Stream.of("12", "a").forEach(pipeline::apply);
+
+        PipelineMetrics metrics = pipeline.metrics();
+        assertEquals(2, metrics.snapshot().get(0).getInvocations());
+        metrics.reset();
+        assertEquals(0, metrics.snapshot().get(0).getInvocations());
+        assertNull(metrics.snapshot().get(0).getLastException());
+    }
+
+    @Test
+    void instrumentedLatencySampling() {
+        Pipeline<String, Integer> sampled = parseAboveTen().instrumented(1000);
+        for (int i = 0; i < 100; i++) {
+            sampled.apply("42");
+        }
+        assertEquals(100, sampled.metrics().snapshot().get(0).getInvocations());
+        assertTrue(sampled.metrics().snapshot().get(0).getSampledInvocations() < 100);
+    }
+
+    @Test
+    void commutativeFilters() {
+        AtomicInteger slowCalls = new AtomicInteger();
+        Pipeline<Integer, Integer> pipeline = Pipeline.input(Integer.class)
+                .filterCommutative(i -> {
+                    slowCalls.incrementAndGet();
+                    return Integer.toString(i).hashCode() != 0;
+                })
+                .filterCommutativeWithException(i -> {
+                    if (i < 0) {
+                        throw new IllegalArgumentException();
+                    }
+                    return i % 10 == 0;
+                })
+                .pipe(i -> i / 10);
+
+        assertEquals(3, pipeline.apply(30).getNullable().intValue());
+        assertFalse(pipeline.apply(31).isPresent());
+        assertFalse(pipeline.apply(-10).isPresent());
+
+        // the always passing filter is moved behind the selective one
+        for (int i = 0; i < 200_000; i++) {
+            pipeline.apply(i);
+        }
+        slowCalls.set(0);
+        long present = IntStream.range(0, 10_000).filter(i -> pipeline.apply(i).isPresent()).count();
+        assertEquals(1_000, present);
+        assertTrue(slowCalls.get() < 2_500, "slow filter ran " + slowCalls.get() + " times");
+
+        Pipeline<Integer, Integer> instrumented = Pipeline.input(Integer.class)
+                .instrumented()
+                .filterCommutative(i -> i > 0)
+                .filterCommutative(i -> i < 10);
+        IntStream.range(-5, 15).forEach(instrumented::apply);
+        assertEquals(1, instrumented.metrics().stageCount());
+        assertEquals(20, instrumented.metrics().snapshot().get(0).getInvocations());
+        assertEquals(11, instrumented.metrics().snapshot().get(0).getRejections());
+    }
+
+    private static Pipeline<String, Integer> countingDecoder(AtomicInteger decodes) {
+        return Pipeline.input(String.class)
+                .pipe(s -> {
+                    decodes.incrementAndGet();
+                    return Integer.valueOf(s);
+                });
+    }
+
+    @Test
+    void cachedPipelineSkipsRepeatedInputs() {
+        AtomicInteger decodes = new AtomicInteger();
+        CachingOperation<String, Integer> cached = CachingOperation.of(countingDecoder(decodes),
+                CacheOptions.defaults().cacheEmpty(true));
+        Pipeline<String, Integer> pipeline = Pipeline.input(String.class).chain(cached).filter(i -> i > 0);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(12, pipeline.apply("12").getNullable().intValue());
+            assertFalse(pipeline.apply("-1").isPresent());
+            assertFalse(pipeline.apply("x").isPresent());
+        }
+        assertEquals(3, decodes.get());
+        assertEquals(6, cached.hitCount());
+        assertEquals(3, cached.missCount());
+        assertEquals(2.0 / 3, cached.hitRate(), 1e-9);
+        assertEquals(3, cached.size());
+    }
+
+    @Test
+    void cachedPopularKeysSurviveScans() {
+        CachingOperation<Integer, Integer> bounded = CachingOperation.of(i -> i * 2, CacheOptions.defaults().maximumSize(100));
+        for (int round = 0; round < 100; round++) {
+            IntStream.range(0, 50).forEach(bounded::apply);
+            IntStream.range(1_000 + round * 200, 1_200 + round * 200).forEach(bounded::apply);
+        }
+        assertTrue(bounded.size() <= 100);
+        bounded.resetStats();
+        IntStream.range(0, 50).forEach(bounded::apply);
+        assertEquals(50, bounded.hitCount());
+    }
+
+    @Test
+    void cachedByWeight() {
+        CachingOperation<String, String> weighted = CachingOperation.of(String::toUpperCase,
+                CacheOptions.defaults().maximumWeight(10, (String key, String value) -> value.length()));
+        Stream.of("abcd", "efgh", "ijklmnopqrst", "abcd", "efgh", "uv", "uv", "uv").forEach(weighted::apply);
+        assertEquals("ABCD", weighted.apply("abcd"));
+        assertTrue(weighted.size() <= 3);
+        assertEquals(0, Stream.of("abcd", "efgh", "uv").filter(k -> weighted.apply(k) == null).count());
+    }
+
+    @Test
+    void cachedEmptyResultsByWeight() {
+        // empty results weigh 1 without reaching the weigher
+        AtomicInteger decodes = new AtomicInteger();
+        CachingOperation<String, Integer> weighted = CachingOperation.of(countingDecoder(decodes), CacheOptions.defaults()
+                .maximumWeight(100, (String key, Integer value) -> value.toString().length())
+                .cacheEmpty(true));
+        for (int i = 0; i < 3; i++) {
+            assertNull(weighted.apply("x"));
+            assertEquals(123, weighted.apply("123").intValue());
+        }
+        assertEquals(2, decodes.get());
+        assertEquals(2, weighted.size());
+    }
+
+    @Test
+    void cachedConcurrently() {
+        CachingOperation<Integer, Integer> shared = CachingOperation.of(i -> i + 1, CacheOptions.defaults());
+        Pipeline<Integer, Integer> concurrent = Pipeline.input(Integer.class).chain(shared);
+        assertTrue(IntStream.range(0, 100_000).parallel().allMatch(i -> concurrent.apply(i % 500).getNullable() == i % 500 + 1));
+        assertEquals(100_000, shared.hitCount() + shared.missCount());
+
+        shared.clear();
+        assertEquals(0, shared.size());
+    }
+
+    @Test
+    void branchingPipeline() {
+        AtomicInteger parses = new AtomicInteger();
+        Pipeline<String, String[]> parsed = Pipeline.input(String.class)
+                .pipe(line -> {
+                    parses.incrementAndGet();
+                    return line.split(",");
+                })
+                .filter(fields -> fields.length == 2);
+
+        Branches<String[]> branches = Branches.of("name", Pipeline.<String[]>input().pipe(fields -> fields[0].trim()))
+                .and("price", Pipeline.<String[]>input().pipeWithException(fields -> Double.valueOf(fields[1])))
+                .and("expensive", Pipeline.<String[]>input()
+                        .pipeWithException(fields -> Double.valueOf(fields[1]))
+                        .filter(price -> price > 100));
+        assertThrows(IllegalArgumentException.class, () -> branches.and("name", Pipeline.input()));
+
+        Pipeline<String, BranchResults> fanned = parsed.branch(branches);
+        BranchResults results = fanned.apply(" lamp ,25.5").getNullable();
+        assertEquals(1, parses.get());
+        assertEquals(Arrays.asList("name", "price", "expensive"), results.names());
+        assertEquals("lamp", results.get("name"));
+        assertEquals(25.5, (double) results.<Double>get(1));
+        assertFalse(results.isPresent("expensive"));
+        assertFalse(results.allPresent());
+        assertEquals(2, results.presentCount());
+        assertThrows(java.util.NoSuchElementException.class, () -> results.get("tax"));
+
+        BranchResults failed = fanned.apply("desk,cheap").getNullable();
+        assertEquals("desk", failed.get("name"));
+        assertFalse(failed.getValue("price").isPresent());
+        assertFalse(fanned.apply("no price").isPresent());
+
+        Pipeline<String, String> joined = fanned
+                .filter(r -> r.isPresent("price"))
+                .pipe(r -> r.get("name") + "=" + r.get("price"));
+        assertEquals("sofa=450.0", joined.apply("sofa,450").getNullable());
+        assertFalse(joined.apply("sofa,n/a").isPresent());
+    }
+
+    @Test
+    void sharedConstruction() {
+        List<Pipeline<Integer, Integer>> pipelines = new ArrayList<>();
+        List<Integer> expected = new ArrayList<>();
+
+        // extend every pipeline built so far, so that forks happen both inside and at the end of shared storage
+        pipelines.add(Pipeline.input(Integer.class));
+        expected.add(0);
+        for (int round = 0; round < 200; round++) {
+            int parent = (round * 7) % pipelines.size();
+            int step = round;
+            pipelines.add(pipelines.get(parent).pipe(x -> x + step));
+            expected.add(expected.get(parent) + step);
+        }
+
+        for (int i = 0; i < pipelines.size(); i++) {
+            assertEquals(expected.get(i), pipelines.get(i).apply(0).getNullable());
+            assertEquals(expected.get(i), pipelines.get(i).compile().apply(0).getNullable());
+        }
+
+        Pipeline<Integer, Integer> base = Pipeline.input(Integer.class).pipe(x -> x + 1).filterCommutative(x -> x > 0);
+        Pipeline<Integer, Integer> grouped = base.filterCommutative(x -> x < 10);
+        Pipeline<Integer, Integer> extended = base.pipe(x -> x * 100);
+        assertEquals(5, grouped.apply(4).getNullable().intValue());
+        assertFalse(grouped.apply(20).isPresent());
+        assertEquals(2100, extended.apply(20).getNullable().intValue());
+        assertEquals(21, base.apply(20).getNullable().intValue());
+    }
+
+    private static final Pipeline<Integer, Integer> REACTIVE_PIPELINE = Pipeline.input(Integer.class)
+            .filter(x -> x % 3 != 0)
+            .pipe(x -> x * 2);
+
+    private static <T> ChunkedSubscriber<T> process(Processor<Integer, T> processor, RangePublisher publisher,
+                                                    int chunk) throws InterruptedException {
+        ChunkedSubscriber<T> subscriber = new ChunkedSubscriber<>(chunk);
+        publisher.subscribe(processor);
+        processor.subscribe(subscriber);
+        assertTrue(subscriber.finished.await(10, TimeUnit.SECONDS));
+        return subscriber;
+    }
+
+    @Test
+    void reactiveProcessorBoundsDemand() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+
+        try {
+            ProcessorOptions options = ProcessorOptions.defaults().batchSize(8).parallelism(4).executor(pool);
+            RangePublisher publisher = new RangePublisher(1000);
+            ChunkedSubscriber<Integer> subscriber = process(PipelineProcessor.of(REACTIVE_PIPELINE, options), publisher, 5);
+
+            assertNull(subscriber.error);
+            assertFalse(subscriber.overflowed.get());
+            assertTrue(publisher.maxOutstanding.get() <= 8 * 4 * 2);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void reactiveProcessorKeepsOrder() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+
+        try {
+            ProcessorOptions options = ProcessorOptions.defaults().batchSize(8).parallelism(4).executor(pool);
+            ChunkedSubscriber<Integer> subscriber =
+                    process(PipelineProcessor.of(REACTIVE_PIPELINE, options), new RangePublisher(1000), 5);
+
+            assertNull(subscriber.error);
+            assertEquals(IntStream.rangeClosed(1, 1000).filter(x -> x % 3 != 0).map(x -> x * 2)
+                    .boxed().collect(Collectors.toList()), subscriber.items);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void reactiveProcessorForwardsEmptyValues() throws Exception {
+        ProcessorOptions options = ProcessorOptions.defaults().batchSize(4);
+        ChunkedSubscriber<Value<Integer>> subscriber =
+                process(PipelineProcessor.ofValues(REACTIVE_PIPELINE, options), new RangePublisher(30), 7);
+
+        assertNull(subscriber.error);
+        assertEquals(30, subscriber.items.size());
+        assertFalse(subscriber.items.get(2).isPresent());
+        assertEquals(8, subscriber.items.get(3).getNullable().intValue());
+    }
+
+    @Test
+    void reactiveProcessorRejectedExecutor() throws Exception {
+        ProcessorOptions options = ProcessorOptions.defaults().executor(task -> {
+            throw new RejectedExecutionException();
+        });
+        RangePublisher publisher = new RangePublisher(100);
+        ChunkedSubscriber<Integer> subscriber = process(PipelineProcessor.of(REACTIVE_PIPELINE, options), publisher, 5);
+
+        assertTrue(subscriber.error instanceof RejectedExecutionException);
+        assertTrue(subscriber.items.isEmpty());
+        assertTrue(publisher.cancelled.get());
+    }
+
+    @Test
+    void reactiveProcessorSingleSubscriber() throws Exception {
+        PipelineProcessor<Integer, Integer> processor = PipelineProcessor.of(REACTIVE_PIPELINE, ProcessorOptions.defaults());
+        process(processor, new RangePublisher(10), 3);
+
+        ChunkedSubscriber<Integer> second = new ChunkedSubscriber<>(1);
+        processor.subscribe(second);
+        assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    private static final class RangePublisher implements Publisher<Integer> {
+        final int count;
+        final AtomicLong maxOutstanding = new AtomicLong();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+
+        RangePublisher(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super Integer> subscriber) {
+            subscriber.onSubscribe(new Subscription() {
+                final AtomicLong requested = new AtomicLong();
+                final AtomicInteger wip = new AtomicInteger();
+                int next = 1;
+                volatile boolean cancelled;
+
+                @Override
+                public void request(long n) {
+                    maxOutstanding.accumulateAndGet(requested.addAndGet(n), Math::max);
+                    if (wip.getAndIncrement() != 0) {
+                        return;
+                    }
+                    do {
+                        while (!cancelled && requested.get() > 0 && next <= count) {
+                            requested.decrementAndGet();
+                            subscriber.onNext(next++);
+                        }
+                        if (!cancelled && next > count) {
+                            cancelled = true;
+                            subscriber.onComplete();
+                        }
+                    } while (wip.decrementAndGet() != 0);
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                    RangePublisher.this.cancelled.set(true);
+                }
+            });
+        }
+    }
+
+    private static final class ChunkedSubscriber<T> implements Subscriber<T> {
+        final int chunk;
+        final List<T> items = new ArrayList<>();
+        final CountDownLatch finished = new CountDownLatch(1);
+        final AtomicBoolean overflowed = new AtomicBoolean();
+        volatile Throwable error;
+        Subscription subscription;
+        long demand;
+
+        ChunkedSubscriber(int chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            demand = chunk;
+            subscription.request(chunk);
+        }
+
+        @Override
+        public void onNext(T item) {
+            if (--demand < 0) {
+                overflowed.set(true);
+            }
+            items.add(item);
+            if (demand == 0) {
+                demand = chunk;
+                subscription.request(chunk);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            finished.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            finished.countDown();
+        }
+    }
+
+    @Test
+    void mappedLines() throws IOException {
+        Path file = Files.createTempFile("lines", ".csv");
+
+        try {
+            StringBuilder content = new StringBuilder();
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 20_000; i++) {
+                String line = i % 10 == 0 ? "" : (i % 7 == 0 ? "caf\u00e9," : "item,") + i;
+                expected.add(line);
+                content.append(line).append(i % 3 == 0 ? "\r\n" : "\n");
+            }
+            content.append("last,1");
+            expected.add("last,1");
+            Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+
+            MappedLineSource source = MappedLineSource.open(file, StandardCharsets.UTF_8, 4096);
+            assertTrue(source.segmentCount() > 1);
+            assertEquals(expected, source.lines().map(CharSequence::toString).collect(Collectors.toList()));
+
+            Pipeline<CharSequence, Integer> pipeline = Pipeline.<CharSequence>input()
+                    .filter(line -> line.length() > 0 && line.charAt(0) == 'c')
+                    .pipe(line -> line.length() * 10 + line.subSequence(3, 4).charAt(0) - 'a');
+            List<Integer> cafes = expected.stream().filter(line -> line.startsWith("caf"))
+                    .map(line -> line.length() * 10 + line.charAt(3) - 'a')
+                    .collect(Collectors.toList());
+            assertEquals(cafes, pipeline.applyStreamAndFilter(source.lines()).collect(Collectors.toList()));
+
+            MappedLineSource whole = MappedLineSource.open(file);
+            assertEquals(1, whole.segmentCount());
+            assertEquals(cafes, pipeline.applyStreamAndFilter(whole.lines().parallel()).collect(Collectors.toList()));
+            assertEquals(cafes, pipeline.applyParallel(whole.spliterator(), ParallelOptions.defaults().granularity(1024)));
+
+            assertThrows(IOException.class, () -> MappedLineSource.open(file, StandardCharsets.UTF_8, 4));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static final int SELECTION_ROWS = 300_000;
+    private static final Pipeline<Integer, Integer> SPARSE = Pipeline.input(Integer.class).filter(x -> x % 97 == 0);
+    private static final Pipeline<Integer, Integer> DENSE = Pipeline.input(Integer.class)
+            .filter(x -> x % 3 != 0)
+            .pipe(x -> x * 2);
+
+    private static Integer[] selectionRows() {
+        return IntStream.range(0, SELECTION_ROWS).boxed().toArray(Integer[]::new);
+    }
+
+    @Test
+    void selectionOfSparseAndDenseRows() {
+        Integer[] rows = selectionRows();
+        SelectionBitmap sparseRows = SPARSE.select(rows);
+        SelectionBitmap denseRows = DENSE.select(Arrays.asList(rows));
+
+        assertEquals(IntStream.range(0, SELECTION_ROWS).filter(x -> x % 97 == 0).count(), sparseRows.cardinality());
+        assertEquals(200_000, denseRows.cardinality());
+        assertTrue(sparseRows.contains(97 * 3000));
+        assertFalse(sparseRows.contains(98));
+        assertTrue(denseRows.sizeInBytes() <= 5 * 8192 + 64);
+        assertTrue(sparseRows.sizeInBytes() < SELECTION_ROWS / 97 * 2 + 64);
+    }
+
+    @Test
+    void selectionSetOperations() {
+        Integer[] rows = selectionRows();
+        SelectionBitmap sparseRows = SPARSE.select(rows);
+        SelectionBitmap denseRows = DENSE.select(rows);
+
+        int[] both = sparseRows.and(denseRows).toArray();
+        assertArrayEquals(IntStream.range(0, SELECTION_ROWS).filter(x -> x % 97 == 0 && x % 3 != 0).toArray(), both);
+
+        SelectionBitmap either = sparseRows.or(denseRows);
+        int[] expected = IntStream.range(0, SELECTION_ROWS).filter(x -> x % 97 == 0 || x % 3 != 0).toArray();
+        assertEquals(expected.length, either.cardinality());
+        assertArrayEquals(expected, either.toArray());
+        assertEquals(denseRows, denseRows.and(either));
+
+        assertEquals(SelectionBitmap.of(5, 1, 70_000, 5), SelectionBitmap.fromMask(new long[]{0b100010}).or(SelectionBitmap.of(70_000)));
+        assertTrue(SelectionBitmap.of(1, 2).and(SelectionBitmap.of(70_000)).isEmpty());
+    }
+
+    @Test
+    void selectionFromBatchResult() {
+        Integer[] batch = Arrays.copyOf(selectionRows(), 1000);
+        batch[6] = null;
+        assertEquals(DENSE.select(batch), DENSE.applyBatch(batch).toSelection());
+    }
+
+    @Test
+    void selectionBuilderChecksIndexes() {
+        assertThrows(IllegalArgumentException.class, () -> SelectionBitmap.builder().add(4).add(4));
+
+        SelectionBitmap.Builder builder = SelectionBitmap.builder().add(4);
+        assertEquals(SelectionBitmap.of(4), builder.build());
+        assertThrows(IllegalStateException.class, () -> builder.add(5));
+    }
 }
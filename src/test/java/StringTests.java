@@ -1,5 +1,19 @@
 import org.junit.jupiter.api.Test;
+import valuestreams.ByteSlice;
+import valuestreams.KeywordMatcher;
+import valuestreams.PatternCache;
+import valuestreams.RegexValidator;
 import valuestreams.StringValue;
+import valuestreams.TextValue;
+import valuestreams.rules.StringRule;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,4 +45,125 @@ public class StringTests {
         assertFalse(StringValue.of("test").map(String::toUpperCase).isEqualTo("TEST").isEmpty());
         assertFalse(StringValue.of("test").asGenericValue().map(String::length).validate(i -> i == 4).isEmpty());
     }
+
+    @Test
+    void testPatterns() {
+        assertFalse(StringValue.of("test").matches(Pattern.compile("t.*t")).isEmpty());
+        assertTrue(StringValue.of("test").matches(Pattern.compile("es")).isEmpty());
+
+        RegexValidator digits = RegexValidator.of("\\d+");
+        assertFalse(StringValue.of("123").validate(digits).isEmpty());
+        assertTrue(StringValue.of("12a").validate(digits).isEmpty());
+        assertTrue(digits.matches(new StringBuilder("42")));
+
+        PatternCache cache = new PatternCache(2);
+        Pattern first = cache.get("a+");
+        assertSame(first, cache.get("a+"));
+        cache.get("b+");
+        cache.get("c+");
+        cache.get("d+");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.hitCount());
+        assertEquals(4, cache.missCount());
+        assertEquals(2, cache.evictionCount());
+
+        cache.resetStats();
+        assertEquals(0, cache.hitCount());
+    }
+
+    @Test
+    void testTextValues() {
+        byte[] packet = "GET /caf\u00e9/\ud83d\ude00 HTTP/1.1".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(packet.length);
+        direct.put(packet);
+
+        ByteSlice path = ByteSlice.of(packet, 4, 11);
+        assertEquals("/caf\u00e9/\ud83d\ude00", path.toString());
+        assertEquals(8, path.length());
+        assertFalse(path.isAscii());
+        assertTrue(ByteSlice.of(packet, 0, 3).isAscii());
+
+        assertTrue(TextValue.of(packet, 4, 11).lengthBetween(8, 8).startsWith("/caf").contains("\u00e9/").isPresent());
+        assertTrue(TextValue.of(direct, 4, 11).isEqualTo("/caf\u00e9/\ud83d\ude00").isPresent());
+        assertTrue(TextValue.of(direct, 0, 3).isEqualTo(ByteSlice.of(packet, 0, 3)).matches("[A-Z]+").isPresent());
+        assertTrue(TextValue.of(packet).contains("HTTP").contains("/1.1").isPresent());
+        assertTrue(TextValue.of(packet).contains("cafe").isEmpty());
+        assertTrue(TextValue.of(packet, 4, 11).startsWith("GET").isEmpty());
+        assertTrue(TextValue.of(packet, 4, 11).lengthAtMost(7).isEmpty());
+        assertEquals('\u00e9', path.charAt(4));
+        assertEquals(packet.length, direct.position());
+
+        StringBuilder builder = new StringBuilder("user:42");
+        assertTrue(TextValue.of(builder).startsWith("user:").isEqualTo("user:42").contains(":4").isPresent());
+        assertTrue(TextValue.of(builder).isEqualTo(ByteSlice.of("user:42".getBytes(StandardCharsets.US_ASCII))).isPresent());
+        assertEquals("user:42", TextValue.of(builder).asStringValue().lengthAtLeast(7).getNullable());
+        assertTrue(TextValue.of("abc").isEqualTo("abd").isEmpty());
+    }
+
+    @Test
+    void testStringRules() {
+        StringRule username = StringRule.all().lengthAtLeast(3).lengthAtMost(64).lengthBetween(1, 32)
+                .startsWith("u").startsWith("us").contains("er").contains("ser").matches("[a-z0-9_]+");
+        assertEquals(3, username.getLength().getMin());
+        assertEquals(32, username.getLength().getMax());
+        assertEquals(4, username.checkCount());
+        assertTrue(username.test("user_1"));
+        assertFalse(username.test("usr_1"));
+        assertFalse(username.test("User_1"));
+        assertTrue(StringValue.of("user_42").satisfies(username).isPresent());
+        assertTrue(TextValue.of("users".getBytes(StandardCharsets.US_ASCII)).satisfies(username).isPresent());
+        assertTrue(StringValue.of("us").satisfies(username).isEmpty());
+        assertTrue(TextValue.of(new StringBuilder("user_7")).satisfies(username).isPresent());
+        assertTrue(TextValue.of(new StringBuilder("usr_7")).satisfies(username).isEmpty());
+
+        assertTrue(StringRule.all().lengthAtLeast(10).lengthAtMost(5).isEmpty());
+        assertTrue(StringRule.all().isEqualTo("a").isEqualTo("b").isEmpty());
+        assertTrue(StringRule.all().isEqualTo("abc").lengthAtLeast(4).isEmpty());
+        assertTrue(StringRule.all().startsWith("ab").startsWith("ac").isEmpty());
+        assertTrue(StringRule.all().lengthAtMost(3).contains("four").isEmpty());
+        assertTrue(StringRule.all().matches("[0-9]+").isEqualTo("12a").isEmpty());
+        assertFalse(StringRule.none().test("anything"));
+
+        StringRule exact = StringRule.all().lengthBetween(1, 5).isEqualTo("abc").and(StringRule.all().startsWith("ab"));
+        assertFalse(exact.isEmpty());
+        assertTrue(exact.test("abc"));
+        assertFalse(exact.test("abd"));
+    }
+
+    @Test
+    void testKeywordMatching() {
+        KeywordMatcher matcher = KeywordMatcher.of("he", "she", "his", "hers", "she");
+        assertEquals(4, matcher.keywordCount());
+        assertEquals("she", matcher.findFirst("ushers"));
+        assertEquals("his", matcher.findFirst("this"));
+        assertNull(matcher.findFirst("Hers"));
+        assertTrue(matcher.containsAny("ahishers"));
+        assertFalse(matcher.containsAny("hxs"));
+        assertTrue(matcher.matchesAny("hers"));
+        assertFalse(matcher.matchesAny("her"));
+
+        KeywordMatcher ignoringCase = KeywordMatcher.caseInsensitive("Spam", "STRA\u00dfE", "\u00c9t\u00e9");
+        assertTrue(ignoringCase.containsAny("this is sPaM"));
+        assertTrue(ignoringCase.containsAny("l'\u00e9T\u00c9"));
+        assertTrue(ignoringCase.matchesAny("stra\u00dfe"));
+        assertEquals("Spam", ignoringCase.findFirst("SPAM!"));
+
+        Random random = new Random(3);
+        List<String> denyList = IntStream.range(0, 5000)
+                .mapToObj(i -> Long.toString(random.nextLong() & Long.MAX_VALUE, 36))
+                .collect(Collectors.toList());
+        KeywordMatcher denied = KeywordMatcher.of(denyList);
+        for (int i = 0; i < 200; i++) {
+            String text = Long.toString(random.nextLong() & Long.MAX_VALUE, 36) + (i % 2 == 0 ? denyList.get(i * 7) : "");
+            assertEquals(denyList.stream().anyMatch(text::contains), denied.containsAny(text));
+        }
+
+        assertTrue(StringValue.of("a comment about spam").containsAny(ignoringCase).isPresent());
+        assertTrue(StringValue.of("a fine comment").containsAny(ignoringCase).isEmpty());
+        assertTrue(StringValue.of("she").matchesAny(matcher).isPresent());
+        assertTrue(TextValue.of("ushers".getBytes(StandardCharsets.US_ASCII)).containsAny(matcher).isPresent());
+        assertTrue(StringValue.of("clean").validate(s -> denied.negate().test(s)).isPresent());
+        assertThrows(IllegalArgumentException.class, () -> KeywordMatcher.of("a", ""));
+    }
 }